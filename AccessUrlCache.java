@@ -0,0 +1,105 @@
+package com.cbxsoftware.rest.util;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+import com.cbxsoftware.rest.enums.FileProtocol;
+
+/**
+ * Bounded cache of signed access urls keyed by {@link FileProtocol} and filePath.
+ * <p>
+ * The time to live must be shorter than the expiry of the signed urls produced by the
+ * {@code FileStorageService}, so that a cached url is never handed out after it expired.
+ * Least recently used entries are evicted once the cache is full.
+ */
+public class AccessUrlCache {
+
+    private final int maxSize;
+    private final long timeToLiveNanos;
+    private final Map<Key, Entry> entries;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    public AccessUrlCache(final int maxSize, final Duration timeToLive) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Entry> eldest) {
+                return size() > AccessUrlCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Return the cached url of protocol & filePath, or resolve it with the loader and cache it.
+     * Empty results are not cached, so a later call can retry the lookup.
+     */
+    public Optional<String> get(final FileProtocol protocol, final String filePath,
+                                final BiFunction<FileProtocol, String, Optional<String>> loader) {
+        if (maxSize == 0 || timeToLiveNanos <= 0) {
+            missCount.increment();
+            return loader.apply(protocol, filePath);
+        }
+        final Key key = new Key(protocol, filePath);
+        final long now = System.nanoTime();
+        synchronized (entries) {
+            final Entry entry = entries.get(key);
+            if (entry != null) {
+                if (now - entry.expireAt() < 0) {
+                    hitCount.increment();
+                    return Optional.of(entry.url());
+                }
+                entries.remove(key);
+            }
+        }
+        missCount.increment();
+        final Optional<String> url = loader.apply(protocol, filePath);
+        url.ifPresent(value -> {
+            synchronized (entries) {
+                entries.put(key, new Entry(value, now + timeToLiveNanos));
+            }
+        });
+        return url;
+    }
+
+    public void invalidate(final FileProtocol protocol, final String filePath) {
+        synchronized (entries) {
+            entries.remove(new Key(protocol, filePath));
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    private record Key(FileProtocol protocol, String filePath) {
+    }
+
+    private record Entry(String url, long expireAt) {
+    }
+
+}
@@ -0,0 +1,181 @@
+package com.cbxsoftware.rest.util;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Resolve access urls of many protocol & filePath infos concurrently, at most maxConcurrency lookups in flight
+ * at a time over all calls.
+ * <p>
+ * Each lookup gets its own timeout, counted from {@link #resolve} rather than from its start, so time spent
+ * waiting for a permit counts too. A lookup which fails or times out resolves to {@link Optional#empty()}, and
+ * one still queued at its timeout is dropped from the queue, so the returned future completes with every
+ * requested info within the timeout even if the service hangs. A timed out lookup which already started keeps
+ * its permit and its thread until the underlying service returns, so a hung signer holds at most
+ * maxConcurrency threads.
+ * <p>
+ * The executor should have maxConcurrency threads, see {@link #newExecutor(int)}.
+ */
+@Slf4j
+public class AccessUrlResolver {
+
+    private final Function<String, Optional<String>> lookup;
+    private final Executor executor;
+    private final long timeoutNanos;
+    private final Semaphore permits;
+    private final Queue<Lookup> pending = new ConcurrentLinkedQueue<>();
+    /**
+     * Dispatch requests, only the thread raising it from 0 dispatches, so an executor running tasks on the
+     * submitting thread does not recurse.
+     */
+    private final AtomicInteger dispatchRequests = new AtomicInteger();
+
+    public AccessUrlResolver(final Function<String, Optional<String>> lookup, final Executor executor,
+                             final int maxConcurrency, final Duration timeout) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+        }
+        this.lookup = lookup;
+        this.executor = executor;
+        this.timeoutNanos = timeout.toNanos();
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * @return executor of daemon threads, at most threads of them, idle ones expire after a minute
+     */
+    public static ThreadPoolExecutor newExecutor(final int threads) {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES,
+            new ArrayBlockingQueue<>(threads), runnable -> {
+                final Thread thread = new Thread(runnable, "access-url-resolver");
+                thread.setDaemon(true);
+                return thread;
+            });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * @return access url by filePathInfo, in the encounter order of filePathInfos, duplicated and null infos
+     * are resolved once and skipped respectively
+     */
+    public CompletableFuture<Map<String, Optional<String>>> resolve(final Collection<String> filePathInfos) {
+        final LinkedHashSet<String> distinctInfos = new LinkedHashSet<>(CommonUtil.safeCollection(filePathInfos));
+        distinctInfos.remove(null);
+        final Batch batch = new Batch(distinctInfos.toArray(new String[0]));
+        if (batch.filePathInfos.length == 0) {
+            batch.result.complete(new LinkedHashMap<>());
+            return batch.result;
+        }
+        for (int i = 0; i < batch.filePathInfos.length; i++) {
+            final Lookup next = new Lookup(batch, i, new CompletableFuture<>());
+            pending.add(next);
+            next.url.orTimeout(timeoutNanos, TimeUnit.NANOSECONDS)
+                .whenComplete((resolvedUrl, throwable) -> {
+                    if (throwable != null) {
+                        // no-op unless the lookup is still queued
+                        pending.remove(next);
+                        log.warn("Fail to resolve access url of {}: {}", next.filePathInfo(), throwable.toString());
+                    }
+                    next.batch.done(next.index, resolvedUrl != null ? resolvedUrl : Optional.empty());
+                });
+        }
+        dispatch();
+        return batch.result;
+    }
+
+    /**
+     * Start pending lookups while permits are left, skipping the timed out ones.
+     */
+    private void dispatch() {
+        if (dispatchRequests.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            while (!pending.isEmpty() && permits.tryAcquire()) {
+                final Lookup next = pending.poll();
+                if (next == null || next.url.isDone()) {
+                    permits.release();
+                } else {
+                    start(next);
+                }
+            }
+        } while (dispatchRequests.decrementAndGet() != 0);
+    }
+
+    private void start(final Lookup next) {
+        final CompletableFuture<Optional<String>> url = next.url;
+        try {
+            executor.execute(() -> {
+                try {
+                    if (!url.isDone()) {
+                        url.complete(lookup.apply(next.filePathInfo()));
+                    }
+                } catch (final Throwable e) {
+                    url.completeExceptionally(e);
+                } finally {
+                    // only once the service returned, also after a timeout
+                    permits.release();
+                    dispatch();
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            permits.release();
+            url.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * @param url completed by the lookup, or exceptionally by its timeout
+     */
+    private record Lookup(Batch batch, int index, CompletableFuture<Optional<String>> url) {
+
+        String filePathInfo() {
+            return batch.filePathInfos[index];
+        }
+    }
+
+    private static final class Batch {
+
+        private final String[] filePathInfos;
+        private final Optional<String>[] urls;
+        private final AtomicInteger remaining;
+        private final CompletableFuture<Map<String, Optional<String>>> result = new CompletableFuture<>();
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Batch(final String[] filePathInfos) {
+            this.filePathInfos = filePathInfos;
+            this.urls = new Optional[filePathInfos.length];
+            this.remaining = new AtomicInteger(filePathInfos.length);
+        }
+
+        void done(final int index, final Optional<String> url) {
+            urls[index] = url;
+            if (remaining.decrementAndGet() == 0) {
+                final Map<String, Optional<String>> urlByInfo = new LinkedHashMap<>();
+                for (int i = 0; i < filePathInfos.length; i++) {
+                    urlByInfo.put(filePathInfos[i], urls[i]);
+                }
+                result.complete(urlByInfo);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.cbxsoftware.rest.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.cbxsoftware.rest.enums.FileProtocol;
+import com.cbxsoftware.rest.service.file.FileStorageService;
+
+/**
+ * Concurrency limit and timeouts of {@link AccessUrlResolver}, against a {@link FileStorageServiceStub} signer.
+ */
+class AccessUrlResolverTest {
+
+    private static final int PERMITS = 2;
+    private static final Duration TIMEOUT = Duration.ofMillis(200);
+
+    @Test
+    void resolvesEveryInfoInEncounterOrder() throws Exception {
+        final FileStorageServiceStub stub = FileStorageServiceStub.withSigningLatency(Duration.ofMillis(1));
+        final ThreadPoolExecutor executor = AccessUrlResolver.newExecutor(PERMITS);
+        try {
+            final AccessUrlResolver resolver = newResolver(stub.asService(), executor, Duration.ofSeconds(10));
+            final List<String> infos = infos(20);
+            infos.add(infos.get(0));
+            infos.add(null);
+
+            final Map<String, Optional<String>> urls = resolver.resolve(infos).get(10, TimeUnit.SECONDS);
+
+            assertEquals(infos.subList(0, 20), new ArrayList<>(urls.keySet()));
+            assertTrue(urls.values().stream().allMatch(Optional::isPresent), () -> "urls: " + urls);
+            assertEquals(20, stub.getAccessUrlCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void hungSignerCompletesQueuedLookupsWithinTimeout() throws Exception {
+        final FileStorageServiceStub stub = FileStorageServiceStub.withSigningLatency(Duration.ofHours(1));
+        final ThreadPoolExecutor executor = AccessUrlResolver.newExecutor(PERMITS);
+        try {
+            final AccessUrlResolver resolver = newResolver(stub.asService(), executor, TIMEOUT);
+            final long start = System.nanoTime();
+
+            final CompletableFuture<Map<String, Optional<String>>> first = resolver.resolve(infos(PERMITS * 5));
+            final Map<String, Optional<String>> urls = first.get(TIMEOUT.toMillis() * 5, TimeUnit.MILLISECONDS);
+
+            assertEquals(PERMITS * 5, urls.size());
+            assertTrue(urls.values().stream().allMatch(Optional::isEmpty), () -> "urls: " + urls);
+            // the permits stay held by the hung lookups, queued ones time out without starting
+            assertEquals(PERMITS, stub.getAccessUrlCount());
+            // a later call while the signer still hangs completes too
+            final Map<String, Optional<String>> later = resolver.resolve(infos(PERMITS))
+                .get(TIMEOUT.toMillis() * 5, TimeUnit.MILLISECONDS);
+            assertTrue(later.values().stream().allMatch(Optional::isEmpty), () -> "urls: " + later);
+            assertTrue(System.nanoTime() - start < TIMEOUT.toNanos() * 10);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static AccessUrlResolver newResolver(final FileStorageService service, final ThreadPoolExecutor executor,
+                                                 final Duration timeout) {
+        return new AccessUrlResolver(filePathInfo -> service.getAccessUrl(FileProtocol.S3, filePathInfo), executor,
+            PERMITS, timeout);
+    }
+
+    private static List<String> infos(final int count) {
+        final List<String> infos = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            infos.add("S3:attachments/file-" + i + ".pdf");
+        }
+        return infos;
+    }
+
+}
@@ -0,0 +1,138 @@
+package com.cbxsoftware.rest.util;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings of {@link AttachmentUtil} under <code>attachment.*</code>, e.g.
+ * <code>attachment.access-url-cache.ttl=PT10M</code> or <code>attachment.local-storage.root=/data/attachments</code>.
+ */
+@Component
+@ConfigurationProperties(prefix = "attachment")
+public class AttachmentProperties {
+
+    private final AccessUrlCacheSettings accessUrlCache = new AccessUrlCacheSettings();
+    private final AccessUrlSettings accessUrl = new AccessUrlSettings();
+    private final LocalStorageSettings localStorage = new LocalStorageSettings();
+
+    public AccessUrlCacheSettings getAccessUrlCache() {
+        return accessUrlCache;
+    }
+
+    public AccessUrlSettings getAccessUrl() {
+        return accessUrl;
+    }
+
+    public LocalStorageSettings getLocalStorage() {
+        return localStorage;
+    }
+
+    public static class AccessUrlCacheSettings {
+
+        private int maxSize = 10_000;
+        /**
+         * Must be shorter than the expiry of the signed urls, 0 disables the cache
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(final int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(final Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    public static class AccessUrlSettings {
+
+        /**
+         * Max access url lookups in flight over all {@link AttachmentUtil#getFilePathInfoUrlsAsync} calls
+         */
+        private int maxConcurrency = 16;
+        /**
+         * Timeout of each access url lookup of {@link AttachmentUtil#getFilePathInfoUrlsAsync}
+         */
+        private Duration timeout = Duration.ofSeconds(5);
+
+        public int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        public void setMaxConcurrency(final int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(final Duration timeout) {
+            this.timeout = timeout;
+        }
+    }
+
+    public static class LocalStorageSettings {
+
+        /**
+         * Root directory of the LOCAL protocol, empty to disable it
+         */
+        private String root = "";
+        /**
+         * Path prefix of the access urls of LOCAL files, served by {@link LocalFileController}
+         */
+        private String baseUrl = LocalFileController.DEFAULT_BASE_URL;
+        /**
+         * Key of the access url signatures, the same on all instances serving the root. Empty generates a random
+         * key at startup, the access urls are then only valid on the instance which issued them until restart
+         */
+        private String signingKey = "";
+        /**
+         * Validity of the access urls, must be longer than the ttl of the access url cache
+         */
+        private Duration urlExpiry = Duration.ofHours(1);
+
+        public String getRoot() {
+            return root;
+        }
+
+        public void setRoot(final String root) {
+            this.root = root;
+        }
+
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+
+        public void setBaseUrl(final String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        public String getSigningKey() {
+            return signingKey;
+        }
+
+        public void setSigningKey(final String signingKey) {
+            this.signingKey = signingKey;
+        }
+
+        public Duration getUrlExpiry() {
+            return urlExpiry;
+        }
+
+        public void setUrlExpiry(final Duration urlExpiry) {
+            this.urlExpiry = urlExpiry;
+        }
+    }
+
+}
@@ -9,12 +9,19 @@
 // ============================================================================
 package com.cbxsoftware.rest.util;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.ObjectUtils;
@@ -25,10 +32,7 @@ import org.springframework.stereotype.Component;
 import com.cbxsoftware.rest.dto.common.AttachmentDto;
 import com.cbxsoftware.rest.dto.common.CustomTableDto;
 import com.cbxsoftware.rest.dto.common.EmbedCodelistDto;
-import com.cbxsoftware.rest.entity.common.EmbedCodelist;
-import com.cbxsoftware.rest.entity.common.EmbedHcl;
 import com.cbxsoftware.rest.entity.custFieldDef.CustFieldDefItem;
-import com.cbxsoftware.rest.enums.FieldDataType;
 import com.cbxsoftware.rest.enums.FileProtocol;
 import com.cbxsoftware.rest.service.file.FileStorageService;
 import com.cbxsoftware.rest.service.file.thumbnail.ThumbnailGenerationService;
@@ -38,15 +42,46 @@ import com.cbxsoftware.rest.service.file.thumbnail.ThumbnailGenerationService;
 public class AttachmentUtil {
 
     private static final String THUMBNAIL_STR = "thumbnail/";
-    private static final Pattern FILE_PATH_INFO_PATTERN =
-        Pattern.compile("^(S3|AZURE_BLOB):(thumbnail/)?[^/]+/[^/]+/[^/]+$");
-    //DFM-544
-    private static final Pattern NEW_FILE_PATH_INFO_PATTERN =
-        Pattern.compile("^(S3|AZURE_BLOB):(thumbnail/)?[^/]+/[^/]+/[^/]+/[^/]+$");
+    private static final int DEFAULT_ACCESS_URL_CACHE_SIZE = 10_000;
+    private static final Duration DEFAULT_ACCESS_URL_CACHE_TTL = Duration.ofMinutes(10);
+    private static final int DEFAULT_ACCESS_URL_MAX_CONCURRENCY = 16;
+    private static final Duration DEFAULT_ACCESS_URL_TIMEOUT = Duration.ofSeconds(5);
     private static FileStorageService fileStorageService;
+    private static AccessUrlCache accessUrlCache =
+        new AccessUrlCache(DEFAULT_ACCESS_URL_CACHE_SIZE, DEFAULT_ACCESS_URL_CACHE_TTL);
+    private static ThumbnailGenerationServiceRegistry thumbnailGenerationServiceRegistry;
+    private static ExecutorService accessUrlExecutor = AccessUrlResolver.newExecutor(DEFAULT_ACCESS_URL_MAX_CONCURRENCY);
+    private static AccessUrlResolver accessUrlResolver = new AccessUrlResolver(AttachmentUtil::getFilePathInfoUrl,
+        accessUrlExecutor, DEFAULT_ACCESS_URL_MAX_CONCURRENCY, DEFAULT_ACCESS_URL_TIMEOUT);
+    private static LocalFileStore localFileStore;
+    private static volatile CompiledCustomFields lastCompiledCustomFields;
 
-    public AttachmentUtil(final FileStorageService fileStorageService) {// KIK-1034
+    public AttachmentUtil(final FileStorageService fileStorageService,// KIK-1034
+                          final AttachmentProperties properties) {
+        final AttachmentProperties.AccessUrlSettings accessUrl = properties.getAccessUrl();
+        final AttachmentProperties.LocalStorageSettings localStorage = properties.getLocalStorage();
         AttachmentUtil.fileStorageService = fileStorageService;
+        AttachmentUtil.accessUrlCache = new AccessUrlCache(properties.getAccessUrlCache().getMaxSize(),
+            properties.getAccessUrlCache().getTtl());
+        final ExecutorService previousAccessUrlExecutor = AttachmentUtil.accessUrlExecutor;
+        AttachmentUtil.accessUrlExecutor = AccessUrlResolver.newExecutor(accessUrl.getMaxConcurrency());
+        AttachmentUtil.accessUrlResolver = new AccessUrlResolver(AttachmentUtil::getFilePathInfoUrl,
+            accessUrlExecutor, accessUrl.getMaxConcurrency(), accessUrl.getTimeout());
+        previousAccessUrlExecutor.shutdown();
+        AttachmentUtil.thumbnailGenerationServiceRegistry =
+            new ThumbnailGenerationServiceRegistry(fileStorageService::getThumbnailGenerationServiceByFilePath);
+        AttachmentUtil.localFileStore = StringUtils.isBlank(localStorage.getRoot()) ? null
+            : new LocalFileStore(Paths.get(localStorage.getRoot()), localStorage.getBaseUrl(),
+                getSigningKey(localStorage), localStorage.getUrlExpiry());
+    }
+
+    private static byte[] getSigningKey(final AttachmentProperties.LocalStorageSettings localStorage) {
+        if (StringUtils.isNotBlank(localStorage.getSigningKey())) {
+            return localStorage.getSigningKey().getBytes(StandardCharsets.UTF_8);
+        }
+        final byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return key;
     }
 
     /**
@@ -56,34 +91,130 @@ public class AttachmentUtil {
         return protocol + ":" + filePath;
     }
 
+    /**
+     * Construct the info of a file stored by the {@link LocalFileStore}, e.g. <code>LOCAL:a/b/c.png</code>
+     */
+    public static String getLocalFilePathInfo(final String filePath) {
+        return LocalFileStore.PROTOCOL + ":" + filePath;
+    }
+
+    /**
+     * Parse the protocol & filePath info, both the legacy 3-segment and the 4-segment (DFM-544) layout are accepted
+     */
+    public static Optional<FilePathRef> parseFilePathInfo(final String filePathInfo) {
+        return Optional.ofNullable(FilePathRef.of(filePathInfo));
+    }
+
+    /**
+     * Parse the protocol & filePath info into a reusable {@link FilePathRef}, for bulk processing without allocation
+     *
+     * @return false if filePathInfo is not a valid protocol & filePath info
+     */
+    public static boolean parseFilePathInfo(final String filePathInfo, final FilePathRef target) {
+        return target.parse(filePathInfo);
+    }
+
     /**
      * Retrieve access url by the protocol & filePath info
      */
     public static Optional<String> getFilePathInfoUrl(final String filePathInfo) {
-        if (StringUtils.isNotBlank(filePathInfo) &&
-            (NEW_FILE_PATH_INFO_PATTERN.matcher(filePathInfo).find() || FILE_PATH_INFO_PATTERN.matcher(filePathInfo).find())) {
-            final int separator = filePathInfo.indexOf(':');
-            final FileProtocol protocol = FileProtocol.valueOf(filePathInfo.substring(0, separator));
-            final String filePath = filePathInfo.substring(separator + 1);
-            return getFilePathUrl(protocol, filePath);
+        final FilePathRef filePathRef = FilePathRef.of(filePathInfo);
+        if (filePathRef == null) {
+            return Optional.empty();
+        }
+        if (filePathRef.isLocal()) {
+            return localFileStore == null ? Optional.empty() : localFileStore.getAccessUrl(filePathRef.getFilePath());
+        }
+        return getFilePathUrl(filePathRef.getProtocol(), filePathRef.getFilePath());
+    }
+
+    /**
+     * Retrieve access urls of several protocol & filePath infos in one batch, duplicated infos are resolved once.
+     *
+     * @return access url by filePathInfo, in the encounter order of filePathInfos
+     */
+    public static Map<String, Optional<String>> getFilePathInfoUrls(final Collection<String> filePathInfos) {
+        final Map<String, Optional<String>> result = new LinkedHashMap<>();
+        for (final String filePathInfo : CommonUtil.safeCollection(filePathInfos)) {
+            if (filePathInfo != null && !result.containsKey(filePathInfo)) {
+                result.put(filePathInfo, getFilePathInfoUrl(filePathInfo));
+            }
         }
-        return Optional.empty();
+        return result;
+    }
+
+    /**
+     * Same as {@link #getFilePathInfoUrls(Collection)} with the lookups running concurrently off the calling thread.
+     * A lookup which fails or times out resolves to Optional.empty(), the future still completes with all infos.
+     *
+     * @see AccessUrlResolver
+     */
+    public static CompletableFuture<Map<String, Optional<String>>> getFilePathInfoUrlsAsync(
+        final Collection<String> filePathInfos) {
+        return accessUrlResolver.resolve(filePathInfos);
     }
 
     /**
      * Retrieve access url by protocol and filePath
      */
     public static Optional<String> getFilePathUrl(final FileProtocol protocol, final String filePath) {
-        return Optional.ofNullable(fileStorageService)
-            .flatMap(service -> service.getAccessUrl(protocol, filePath));
+        if (fileStorageService == null) {
+            return Optional.empty();
+        }
+        final long start = UtilMetrics.FILE_PATH_URL.start();
+        try {
+            return accessUrlCache.get(protocol, filePath, AttachmentUtil::signAccessUrl);
+        } finally {
+            UtilMetrics.FILE_PATH_URL.record(start);
+        }
+    }
+
+    private static Optional<String> signAccessUrl(final FileProtocol protocol, final String filePath) {
+        final long start = UtilMetrics.ACCESS_URL_SIGNING.start();
+        try {
+            return fileStorageService.getAccessUrl(protocol, filePath);
+        } finally {
+            UtilMetrics.ACCESS_URL_SIGNING.record(start);
+        }
+    }
+
+    /**
+     * Cache of signed access urls, exposed for hit/miss statistics and invalidation
+     */
+    public static AccessUrlCache getAccessUrlCache() {
+        return accessUrlCache;
+    }
+
+    /**
+     * Store of the LOCAL protocol, null if <code>attachment.local-storage.root</code> is not configured
+     */
+    public static LocalFileStore getLocalFileStore() {
+        return localFileStore;
     }
 
     /**
-     * Construct the thumbnail filePath
+     * Construct the thumbnail protocol & filePath info, LOCAL files by the {@link LocalFileStore} layout, cloud
+     * files by the thumbnail generation service of their type
+     *
+     * @return null if filePathInfo cannot be parsed
+     */
+    public static String getThumbnailFilePathInfo(final String filePathInfo) {
+        final FilePathRef filePathRef = FilePathRef.of(filePathInfo);
+        if (filePathRef == null) {
+            return null;
+        }
+        if (filePathRef.isLocal()) {
+            return getLocalFilePathInfo(LocalFileStore.getThumbnailFilePath(filePathRef.getFilePath()));
+        }
+        return getFilePathInfo(filePathRef.getProtocol(), getThumbnailFilePath(filePathRef.getFilePath()));
+    }
+
+    /**
+     * Construct the thumbnail filePath of a cloud file, see {@link #getThumbnailFilePathInfo} for LOCAL files
      */
     public static String getThumbnailFilePath(final String originalFilePath) { // KIK-1034
-        ThumbnailGenerationService thumbnailGenerationService =
-            fileStorageService.getThumbnailGenerationServiceByFilePath(originalFilePath);
+        final ThumbnailGenerationService thumbnailGenerationService =
+            thumbnailGenerationServiceRegistry.get(originalFilePath);
         if (thumbnailGenerationService == null) {
             return THUMBNAIL_STR + originalFilePath;
         }
@@ -91,6 +222,24 @@ public class AttachmentUtil {
         return THUMBNAIL_STR + thumbnailFilePath;
     }
 
+    /**
+     * Construct the thumbnail filePaths of a page of original filePaths, in the same order
+     */
+    public static List<String> getThumbnailFilePaths(final List<String> originalFilePaths) {
+        final List<String> thumbnailFilePaths = new ArrayList<>(CollectionUtils.size(originalFilePaths));
+        for (final String originalFilePath : CommonUtil.safeCollection(originalFilePaths)) {
+            thumbnailFilePaths.add(getThumbnailFilePath(originalFilePath));
+        }
+        return thumbnailFilePaths;
+    }
+
+    /**
+     * Registry of the memoized thumbnail generation services, exposed for invalidation
+     */
+    public static ThumbnailGenerationServiceRegistry getThumbnailGenerationServiceRegistry() {
+        return thumbnailGenerationServiceRegistry;
+    }
+
     /**
      * Convert protocol string to {@link FileProtocol}
      */
@@ -129,16 +278,23 @@ public class AttachmentUtil {
         if (CollectionUtils.size(sourceCodelists) != CollectionUtils.size(targetCodelists)) {
             return true;
         }
+        final Set<String> targetCodes = CodelistDiff.toCodes(targetCodelists);
         for (final EmbedCodelistDto source : sourceCodelists) {
-            final Optional<EmbedCodelistDto> targetOpt = CommonUtil.safeStream(targetCodelists)
-                .filter(tc -> org.apache.commons.lang.StringUtils.equals(tc.getCode(), source.getCode())).findFirst();
-            if (!targetOpt.isPresent()) {
+            if (!targetCodes.contains(source.getCode())) {
                 return true;
             }
         }
         return false;
     }
 
+    /**
+     * Compare two codelist selections by code, returning the added, removed and unchanged codes
+     */
+    public static CodelistDiff diffCodelists(final List<EmbedCodelistDto> sourceCodelists,
+                                             final List<EmbedCodelistDto> targetCodelists) {
+        return CodelistDiff.of(sourceCodelists, targetCodelists);
+    }
+
     public static boolean isAttachmentUpdated(final AttachmentDto sourceAttachment, final AttachmentDto targetAttachment) {
         if (sourceAttachment == null && targetAttachment == null) {
             return false;
@@ -157,52 +313,33 @@ public class AttachmentUtil {
         return false;
     }
 
+    /**
+     * The plan of the last custFieldDefItems list is reused while the same list, with the same field ids and types,
+     * is passed again, so per-record calls compile it once. Callers alternating between definition lists should
+     * compile their plans with {@link #compileCustomFieldComparison} instead.
+     */
     public static boolean isCustomFieldUpdated(final CustomTableDto sourceCustomFields,
-    		final CustomTableDto targetCustomFields, final List<CustFieldDefItem> custFieldDefItems) {
-    	if (ObjectUtils.isEmpty(custFieldDefItems)) {
-    		return false;
-    	}
-        if (sourceCustomFields == null && targetCustomFields == null) {
+                                               final CustomTableDto targetCustomFields, final List<CustFieldDefItem> custFieldDefItems) {
+        if (ObjectUtils.isEmpty(custFieldDefItems)) {
             return false;
         }
-        final Map<String, Object> sourceDynamicModelMap = sourceCustomFields != null ? sourceCustomFields.getDynamicModelMap() : null;
-        final Map<String, Object> targetDynamicModelMap = targetCustomFields != null ? targetCustomFields.getDynamicModelMap() : null;
-        if (sourceDynamicModelMap == null && targetDynamicModelMap == null) {
-            return false;
+        CompiledCustomFields compiled = lastCompiledCustomFields;
+        if (compiled == null || compiled.custFieldDefItems() != custFieldDefItems
+            || !compiled.plan().isCompiledFrom(custFieldDefItems)) {
+            compiled = new CompiledCustomFields(custFieldDefItems, CustomFieldComparisonPlan.compile(custFieldDefItems));
+            lastCompiledCustomFields = compiled;
         }
-        for (final CustFieldDefItem custFieldDefItem : custFieldDefItems) {
-    		final String fieldType = custFieldDefItem.getFieldType();
-    		final String fieldId = custFieldDefItem.getFieldId();
-    		final Object sourceValue = sourceDynamicModelMap != null ? sourceDynamicModelMap.get(fieldId) : null;
-    		final Object targetValue = targetDynamicModelMap != null ? targetDynamicModelMap.get(fieldId) : null;
-			if (sourceValue == null && targetValue == null) {
-	            return false;
-	        }
-	        if (sourceValue == null && targetValue != null) {
-	            return true;
-	        }
-	        if (sourceValue != null && targetValue == null) {
-	            return true;
-	        }
-    		if (StringUtils.equalsIgnoreCase(fieldType, FieldDataType.CODELIST.getValue())) {
-    			if (ObjectUtils.notEqual(((EmbedCodelist) sourceValue).getCode(), ((EmbedCodelist) targetValue).getCode())) {
-	        		return true;
-	        	}
-    		} else if (StringUtils.equalsIgnoreCase(fieldType, "HclGroup")) {
-    			if (ObjectUtils.notEqual(((EmbedHcl) sourceValue).getHclNodeFullCode(), ((EmbedHcl) targetValue).getHclNodeFullCode())) {
-	        		return true;
-	        	}
-    		} else if (StringUtils.equalsIgnoreCase(fieldType, FieldDataType.DECIMAL.getValue())) {
-    			final BigDecimal sourceDecimalValue= ((BigDecimal)sourceValue).setScale(5, RoundingMode.HALF_UP);
-    			final BigDecimal targetDecimalValue= ((BigDecimal)targetValue).setScale(5, RoundingMode.HALF_UP);
-    			if (ObjectUtils.notEqual(sourceDecimalValue, targetDecimalValue)) {
-        			return true;
-        		}
-    		} else if (ObjectUtils.notEqual(sourceValue, targetValue)) {
-    			return true;
-    		}
-    	}
-        return false;
+        return compiled.plan().isUpdated(sourceCustomFields, targetCustomFields);
+    }
+
+    /**
+     * Compile the custom field definitions once, for change detection of many records against the same definitions
+     */
+    public static CustomFieldComparisonPlan compileCustomFieldComparison(final List<CustFieldDefItem> custFieldDefItems) {
+        return CustomFieldComparisonPlan.compile(custFieldDefItems);
+    }
+
+    private record CompiledCustomFields(List<CustFieldDefItem> custFieldDefItems, CustomFieldComparisonPlan plan) {
     }
 
 }
@@ -0,0 +1,228 @@
+package com.cbxsoftware.rest.util;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Per-class bean metadata with precompiled accessors, built once per class and cached by {@link ClassValue}
+ * so classes can still be unloaded with their classloader.
+ * <p>
+ * Getters are bound through {@link LambdaMetafactory} where possible and fall back to a {@link MethodHandle},
+ * declared fields are read through a {@link MethodHandle}. No reflective call happens after the first access.
+ */
+public final class BeanIntrospector {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final ClassValue<BeanMetadata> METADATA = new ClassValue<>() {
+        @Override
+        protected BeanMetadata computeValue(final Class<?> type) {
+            return new BeanMetadata(type);
+        }
+    };
+
+    private BeanIntrospector() {
+    }
+
+    /**
+     * @return readable bean properties of the class, excluding <code>getClass()</code>
+     */
+    public static List<Accessor> getProperties(final Class<?> type) {
+        return METADATA.get(type).getProperties();
+    }
+
+    /**
+     * @return fields declared by the class itself, superclass fields are excluded
+     */
+    public static List<Accessor> getDeclaredFields(final Class<?> type) {
+        return METADATA.get(type).getDeclaredFields();
+    }
+
+    /**
+     * Read all bean properties, null values included.
+     */
+    public static Map<String, Object> toPropertyMap(final Object bean) {
+        final List<Accessor> properties = getProperties(bean.getClass());
+        final Map<String, Object> map = new HashMap<>(capacityOf(properties.size()));
+        for (final Accessor property : properties) {
+            map.put(property.getName(), property.get(bean));
+        }
+        return map;
+    }
+
+    /**
+     * Read all declared fields, skipping null values and empty {@link ArrayList}s.
+     */
+    public static Map<String, Object> toNonEmptyFieldMap(final Object entity) {
+        final List<Accessor> fields = getDeclaredFields(entity.getClass());
+        final Map<String, Object> map = new HashMap<>(capacityOf(fields.size()));
+        for (final Accessor field : fields) {
+            final Object value = field.get(entity);
+            if (value == null || value instanceof ArrayList<?> list && list.isEmpty()) {
+                continue;
+            }
+            map.put(field.getName(), value);
+        }
+        return map;
+    }
+
+    private static int capacityOf(final int size) {
+        return Math.max(16, size * 4 / 3 + 1);
+    }
+
+    /**
+     * Precompiled read accessor of a bean property or field.
+     */
+    public static final class Accessor {
+
+        private final String name;
+        private final Class<?> type;
+        private final Type genericType;
+        private final Function<Object, Object> getter;
+
+        Accessor(final String name, final Class<?> type, final Type genericType, final Function<Object, Object> getter) {
+            this.name = name;
+            this.type = type;
+            this.genericType = genericType;
+            this.getter = getter;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Class<?> getType() {
+            return type;
+        }
+
+        /**
+         * @return declared type including type arguments, e.g. <code>List&lt;String&gt;</code>
+         */
+        public Type getGenericType() {
+            return genericType;
+        }
+
+        public Object get(final Object bean) {
+            return getter.apply(bean);
+        }
+    }
+
+    private static final class BeanMetadata {
+
+        private final Class<?> type;
+        private volatile List<Accessor> properties;
+        private volatile List<Accessor> declaredFields;
+
+        BeanMetadata(final Class<?> type) {
+            this.type = type;
+        }
+
+        List<Accessor> getProperties() {
+            List<Accessor> result = properties;
+            if (result == null) {
+                result = properties = buildProperties(type);
+            }
+            return result;
+        }
+
+        List<Accessor> getDeclaredFields() {
+            List<Accessor> result = declaredFields;
+            if (result == null) {
+                result = declaredFields = buildDeclaredFields(type);
+            }
+            return result;
+        }
+    }
+
+    private static List<Accessor> buildProperties(final Class<?> type) {
+        final PropertyDescriptor[] descriptors;
+        try {
+            descriptors = Introspector.getBeanInfo(type, Object.class).getPropertyDescriptors();
+        } catch (final IntrospectionException e) {
+            throw new IllegalStateException("Cannot introspect " + type.getName() + ".", e);
+        }
+        final List<Accessor> accessors = new ArrayList<>(descriptors.length);
+        for (final PropertyDescriptor descriptor : descriptors) {
+            final Method readMethod = descriptor.getReadMethod();
+            if (readMethod != null) {
+                accessors.add(new Accessor(descriptor.getName(), descriptor.getPropertyType(),
+                    readMethod.getGenericReturnType(), compileGetter(readMethod)));
+            }
+        }
+        return Collections.unmodifiableList(accessors);
+    }
+
+    private static List<Accessor> buildDeclaredFields(final Class<?> type) {
+        final Field[] fields = type.getDeclaredFields();
+        final List<Accessor> accessors = new ArrayList<>(fields.length);
+        for (final Field field : fields) {
+            accessors.add(new Accessor(field.getName(), field.getType(), field.getGenericType(), compileFieldGetter(field)));
+        }
+        return Collections.unmodifiableList(accessors);
+    }
+
+    private static Function<Object, Object> compileGetter(final Method method) {
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(method.getDeclaringClass(), LOOKUP);
+            final MethodHandle handle = lookup.unreflect(method);
+            try {
+                final CallSite callSite = LambdaMetafactory.metafactory(lookup, "apply",
+                    MethodType.methodType(Function.class), GETTER_TYPE, handle, handle.type().wrap());
+                // noinspection unchecked
+                return (Function<Object, Object>) callSite.getTarget().invokeExact();
+            } catch (final Throwable e) {
+                return toFunction(handle.asType(GETTER_TYPE), method.toString());
+            }
+        } catch (final IllegalAccessException e) {
+            method.setAccessible(true);
+            try {
+                return toFunction(LOOKUP.unreflect(method).asType(GETTER_TYPE), method.toString());
+            } catch (final IllegalAccessException ex) {
+                throw new IllegalStateException("Cannot access " + method + ".", ex);
+            }
+        }
+    }
+
+    private static Function<Object, Object> compileFieldGetter(final Field field) {
+        field.setAccessible(true);
+        try {
+            MethodHandle handle = LOOKUP.unreflectGetter(field);
+            if (Modifier.isStatic(field.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+            return toFunction(handle.asType(GETTER_TYPE), field.toString());
+        } catch (final IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access " + field + ".", e);
+        }
+    }
+
+    private static Function<Object, Object> toFunction(final MethodHandle handle, final String description) {
+        return bean -> {
+            try {
+                return handle.invokeExact(bean);
+            } catch (final RuntimeException | Error e) {
+                throw e;
+            } catch (final Throwable e) {
+                throw new IllegalStateException("Cannot read " + description + ".", e);
+            }
+        };
+    }
+
+}
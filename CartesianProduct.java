@@ -0,0 +1,131 @@
+package com.cbxsoftware.rest.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy cartesian product of lists. Combinations are addressed by their index in the product, so nothing is
+ * materialized up front and the stream splits exactly in halves for parallel (fork-join) consumption.
+ * The last dimension varies fastest, same order as nested loops. Null products are filtered out.
+ */
+public final class CartesianProduct {
+
+    private CartesianProduct() {
+    }
+
+    public static <T, U, R> Stream<R> stream(final List<T> list1, final List<U> list2, final BiFunction<T, U, R> productBy) {
+        final List<T> first = randomAccess(list1);
+        final List<U> second = randomAccess(list2);
+        final int secondSize = second.size();
+        final long size = (long) first.size() * secondSize;
+        return stream(size, index -> productBy.apply(first.get((int) (index / secondSize)), second.get((int) (index % secondSize))));
+    }
+
+    /**
+     * @param productBy receives one element per dimension, in the order of dimensions; the list is only valid
+     *                  during the call
+     */
+    public static <T, R> Stream<R> stream(final List<? extends List<? extends T>> dimensions,
+                                          final Function<List<T>, R> productBy) {
+        if (dimensions.isEmpty()) {
+            return Stream.empty();
+        }
+        final List<List<? extends T>> lists = new ArrayList<>(dimensions.size());
+        long size = 1;
+        for (final List<? extends T> dimension : dimensions) {
+            final List<? extends T> list = randomAccess(dimension);
+            lists.add(list);
+            size = Math.multiplyExact(size, (long) list.size());
+        }
+        final int dimensionCount = lists.size();
+        return stream(size, index -> {
+            final Object[] tuple = new Object[dimensionCount];
+            long remainder = index;
+            for (int i = dimensionCount - 1; i >= 0; i--) {
+                final List<? extends T> list = lists.get(i);
+                tuple[i] = list.get((int) (remainder % list.size()));
+                remainder /= list.size();
+            }
+            // every element was taken from a List<? extends T>
+            @SuppressWarnings("unchecked")
+            final List<T> product = (List<T>) (List<?>) Collections.unmodifiableList(Arrays.asList(tuple));
+            return productBy.apply(product);
+        });
+    }
+
+    private static <R> Stream<R> stream(final long size, final LongFunction<R> productAt) {
+        return StreamSupport.stream(new IndexSpliterator<>(productAt, 0, size), false)
+            .filter(Objects::nonNull);
+    }
+
+    private static <T> List<T> randomAccess(final List<T> list) {
+        if (list == null) {
+            return Collections.emptyList();
+        }
+        return list instanceof RandomAccess ? list : new ArrayList<>(list);
+    }
+
+    private static final class IndexSpliterator<R> implements Spliterator<R> {
+
+        private final LongFunction<R> productAt;
+        private long index;
+        private final long fence;
+
+        IndexSpliterator(final LongFunction<R> productAt, final long origin, final long fence) {
+            this.productAt = productAt;
+            this.index = origin;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super R> action) {
+            if (index >= fence) {
+                return false;
+            }
+            action.accept(productAt.apply(index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(final Consumer<? super R> action) {
+            final long end = fence;
+            for (long i = index; i < end; i++) {
+                action.accept(productAt.apply(i));
+            }
+            index = end;
+        }
+
+        @Override
+        public Spliterator<R> trySplit() {
+            final long middle = (index + fence) >>> 1;
+            if (middle <= index) {
+                return null;
+            }
+            final IndexSpliterator<R> prefix = new IndexSpliterator<>(productAt, index, middle);
+            index = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | IMMUTABLE;
+        }
+    }
+
+}
@@ -8,6 +8,12 @@
 
 package com.cbxsoftware.rest.util.export;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
 /**
  * @author arthur.ou
  *
@@ -16,6 +22,11 @@ public class CellValueUtils {
 
     private static final String STRING_BOOLEAN_FALSE = "0";
     private static final String STRING_BOOLEAN_TRUE  = "1";
+    /**
+     * Buffers larger than this are not kept by {@link #SCRATCH}
+     */
+    private static final int MAX_SCRATCH_CAPACITY = 1 << 13;
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
 
     public static String getStringValue(final Object value) {
         if (value == null) {
@@ -39,4 +50,152 @@ public class CellValueUtils {
         return value.toString();
     }
 
+    /**
+     * Append the same text as {@link #getStringValue(Object)} to out, without creating a String for
+     * primitive wrappers.
+     *
+     * @return false if value is null and nothing was appended
+     */
+    public static boolean appendStringValue(final Object value, final StringBuilder out) {
+        if (value == null) {
+            return false;
+        }
+        getCellEncoder(value.getClass()).encode(value, out);
+        return true;
+    }
+
+    /**
+     * Same as {@link #appendStringValue(Object, StringBuilder)} for any character sink, e.g. a {@link Writer} of
+     * an export file.
+     *
+     * @return false if value is null and nothing was appended
+     */
+    public static boolean appendStringValue(final Object value, final Appendable out) throws IOException {
+        if (value == null) {
+            return false;
+        }
+        getCellEncoder(value.getClass()).encode(value, out);
+        return true;
+    }
+
+    /**
+     * Resolve the encoder of a value class once, e.g. per export column, instead of per cell.
+     */
+    public static CellEncoder getCellEncoder(final Class<?> valueClass) {
+        if (valueClass == String.class) {
+            return (value, out) -> out.append((String) value);
+        } else if (valueClass == Boolean.class) {
+            return (value, out) -> out.append((Boolean) value ? STRING_BOOLEAN_TRUE : STRING_BOOLEAN_FALSE);
+        } else if (valueClass == Double.class) {
+            return (value, out) -> ExportValueFormatter.appendDouble((Double) value, out);
+        } else if (valueClass == Float.class) {
+            return (value, out) -> ExportValueFormatter.appendFloat((Float) value, out);
+        } else if (valueClass == Integer.class || valueClass == Short.class || valueClass == Byte.class) {
+            return (value, out) -> out.append(((Number) value).intValue());
+        } else if (valueClass == Long.class) {
+            return (value, out) -> ExportValueFormatter.appendLong((Long) value, out);
+        } else if (valueClass == BigDecimal.class) {
+            return (value, out) -> ExportValueFormatter.appendBigDecimal((BigDecimal) value, out);
+        } else if (valueClass == LocalDateTime.class) {
+            return (value, out) -> ExportValueFormatter.appendLocalDateTime((LocalDateTime) value, out);
+        } else if (valueClass == Timestamp.class) {
+            return (value, out) -> ExportValueFormatter.appendTimestamp((Timestamp) value, out);
+        } else if (valueClass == Character.class) {
+            return (value, out) -> out.append(((Character) value).charValue());
+        }
+        return (value, out) -> out.append(value.toString());
+    }
+
+    /**
+     * Encoder of a single cell value, the value is never null and always of the class it was resolved for.
+     */
+    @FunctionalInterface
+    public interface CellEncoder {
+
+        void encode(Object value, StringBuilder out);
+
+        /**
+         * Encode into a StringBuilder of the current thread and copy that to out, the formatters of
+         * {@link ExportValueFormatter} only write to a StringBuilder.
+         */
+        default void encode(final Object value, final Appendable out) throws IOException {
+            if (out instanceof StringBuilder builder) {
+                encode(value, builder);
+                return;
+            }
+            final Scratch scratch = SCRATCH.get();
+            final StringBuilder buffer = scratch.buffer;
+            buffer.setLength(0);
+            encode(value, buffer);
+            scratch.copyTo(out);
+        }
+    }
+
+    /**
+     * Per thread buffers of {@link CellEncoder#encode(Object, Appendable)}.
+     */
+    private static final class Scratch {
+
+        private StringBuilder buffer = new StringBuilder();
+        private char[] chars = new char[64];
+
+        void copyTo(final Appendable out) throws IOException {
+            final int length = buffer.length();
+            if (out instanceof Writer writer) {
+                // Writer.append(CharSequence) would create a String of the buffer
+                if (chars.length < length) {
+                    chars = new char[Math.max(length, chars.length * 2)];
+                }
+                buffer.getChars(0, length, chars, 0);
+                writer.write(chars, 0, length);
+            } else {
+                out.append(buffer, 0, length);
+            }
+            if (buffer.capacity() > MAX_SCRATCH_CAPACITY) {
+                buffer = new StringBuilder();
+                chars = new char[64];
+            }
+        }
+    }
+
+    /**
+     * Encoder of an export column: the encoder is resolved on the first value and only resolved again when
+     * a value of another class shows up, so a column of uniform type dispatches once.
+     */
+    public static final class ColumnEncoder {
+
+        private Class<?> valueClass;
+        private CellEncoder encoder;
+
+        /**
+         * @return false if value is null and nothing was appended
+         */
+        public boolean append(final Object value, final StringBuilder out) {
+            if (value == null) {
+                return false;
+            }
+            if (value.getClass() != valueClass) {
+                valueClass = value.getClass();
+                encoder = getCellEncoder(valueClass);
+            }
+            encoder.encode(value, out);
+            return true;
+        }
+
+        /**
+         * @return false if value is null and nothing was appended
+         */
+        public boolean append(final Object value, final Appendable out) throws IOException {
+            if (value == null) {
+                return false;
+            }
+            if (value.getClass() != valueClass) {
+                valueClass = value.getClass();
+                encoder = getCellEncoder(valueClass);
+            }
+            encoder.encode(value, out);
+            return true;
+        }
+    }
+
 }
@@ -0,0 +1,88 @@
+package com.cbxsoftware.rest.util;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.cbxsoftware.rest.dto.common.EmbedCodelistDto;
+
+/**
+ * Difference of two codelist selections compared by {@link EmbedCodelistDto#getCode()}, computed in linear time.
+ * Codes keep the encounter order of the list they come from.
+ */
+public final class CodelistDiff {
+
+    private final Set<String> addedCodes;
+    private final Set<String> removedCodes;
+    private final Set<String> unchangedCodes;
+
+    private CodelistDiff(final Set<String> addedCodes, final Set<String> removedCodes, final Set<String> unchangedCodes) {
+        this.addedCodes = Collections.unmodifiableSet(addedCodes);
+        this.removedCodes = Collections.unmodifiableSet(removedCodes);
+        this.unchangedCodes = Collections.unmodifiableSet(unchangedCodes);
+    }
+
+    /**
+     * @param sourceCodelists the codelists before the change, null is treated as empty
+     * @param targetCodelists the codelists after the change, null is treated as empty
+     */
+    public static CodelistDiff of(final List<EmbedCodelistDto> sourceCodelists,
+                                  final List<EmbedCodelistDto> targetCodelists) {
+        final Set<String> sourceCodes = toCodes(sourceCodelists);
+        final Set<String> targetCodes = toCodes(targetCodelists);
+        final Set<String> removedCodes = new LinkedHashSet<>();
+        final Set<String> unchangedCodes = new LinkedHashSet<>();
+        for (final String code : sourceCodes) {
+            if (targetCodes.contains(code)) {
+                unchangedCodes.add(code);
+            } else {
+                removedCodes.add(code);
+            }
+        }
+        final Set<String> addedCodes = new LinkedHashSet<>();
+        for (final String code : targetCodes) {
+            if (!sourceCodes.contains(code)) {
+                addedCodes.add(code);
+            }
+        }
+        return new CodelistDiff(addedCodes, removedCodes, unchangedCodes);
+    }
+
+    /**
+     * @return codes of the codelists, null codelists are skipped
+     */
+    static Set<String> toCodes(final Collection<EmbedCodelistDto> codelists) {
+        final Collection<EmbedCodelistDto> safeCodelists = CommonUtil.safeCollection(codelists);
+        final Set<String> codes = new LinkedHashSet<>(Math.max(16, safeCodelists.size() * 4 / 3 + 1));
+        for (final EmbedCodelistDto codelist : safeCodelists) {
+            if (codelist != null) {
+                codes.add(codelist.getCode());
+            }
+        }
+        return codes;
+    }
+
+    public Set<String> getAddedCodes() {
+        return addedCodes;
+    }
+
+    public Set<String> getRemovedCodes() {
+        return removedCodes;
+    }
+
+    public Set<String> getUnchangedCodes() {
+        return unchangedCodes;
+    }
+
+    public boolean isUpdated() {
+        return !addedCodes.isEmpty() || !removedCodes.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "CodelistDiff{added=" + addedCodes + ", removed=" + removedCodes + ", unchanged=" + unchangedCodes + "}";
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.cbxsoftware.rest.util;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+/**
+ * Converter of one column of native query results, e.g. <code>List&lt;Object[]&gt;</code>.
+ * <p>
+ * The conversion for the runtime class of the column is resolved on the first non-null value and reused
+ * for the following rows; it is only resolved again if a value of another class shows up. Values which cannot
+ * be converted yield the default value and are counted instead of throwing. Not thread-safe, use one
+ * instance per column and result set.
+ */
+public final class ColumnConverter<T> {
+
+    private final T defaultValue;
+    private final Function<Class<?>, Function<Object, T>> conversionResolver;
+    private Class<?> valueClass;
+    private Function<Object, T> conversion;
+    private long failureCount;
+
+    private ColumnConverter(final T defaultValue, final Function<Class<?>, Function<Object, T>> conversionResolver) {
+        this.defaultValue = defaultValue;
+        this.conversionResolver = conversionResolver;
+    }
+
+    /**
+     * Same result as {@link DataUtil#bigDec2Int(Object, Integer)}.
+     */
+    public static ColumnConverter<Integer> bigDecToInt(final Integer defaultValue) {
+        return new ColumnConverter<>(defaultValue, valueClass -> {
+            if (BigDecimal.class.isAssignableFrom(valueClass)) {
+                return value -> DataUtil.toIntExact((BigDecimal) value);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Same result as {@link DataUtil#timestamp2LocalDateTime(Object)}.
+     */
+    public static ColumnConverter<LocalDateTime> timestampToLocalDateTime() {
+        return new ColumnConverter<>(null, valueClass -> {
+            if (Timestamp.class.isAssignableFrom(valueClass)) {
+                return value -> DataUtil.toLocalDateTime((Timestamp) value);
+            }
+            return null;
+        });
+    }
+
+    public T convert(final Object value) {
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value.getClass() != valueClass) {
+            valueClass = value.getClass();
+            conversion = conversionResolver.apply(valueClass);
+        }
+        final T result = conversion == null ? null : conversion.apply(value);
+        if (result == null) {
+            failureCount++;
+            return defaultValue;
+        }
+        return result;
+    }
+
+    /**
+     * @return number of non-null values which could not be converted
+     */
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+}
@@ -0,0 +1,378 @@
+package com.cbxsoftware.rest.util;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+
+/**
+ * Decode columns of native query results (<code>List&lt;Object[]&gt;</code>) into primitive arrays, so large
+ * reports hold a few arrays instead of one boxed object per cell.
+ * <ul>
+ * <li>{@link IntColumn}: <code>int[]</code> with a null bitmap, decoded like {@link DataUtil#bigDec2Int(Object, Integer)}</li>
+ * <li>{@link LongColumn}: <code>long[]</code> epoch microseconds with a null bitmap, decoded from {@link Timestamp}</li>
+ * <li>{@link DictionaryColumn}: <code>int[]</code> codes into a dictionary of the distinct strings</li>
+ * </ul>
+ * Values which cannot be decoded are stored as null and counted.
+ */
+public final class ColumnarDecoder {
+
+    private static final long MILLIS_PER_SECOND = 1_000L;
+    private static final long MICROS_PER_MILLI = 1_000L;
+    private static final long MICROS_PER_SECOND = 1_000_000L;
+    private static final int NANOS_PER_MICRO = 1_000;
+
+    private ColumnarDecoder() {
+    }
+
+    public static IntColumn decodeBigDecInts(final List<Object[]> rows, final int columnIndex) {
+        final int[] values = new int[rows.size()];
+        final BitSet nulls = new BitSet(rows.size());
+        int failureCount = 0;
+        for (int i = 0; i < values.length; i++) {
+            final Object value = rows.get(i)[columnIndex];
+            final Integer decoded = value instanceof BigDecimal bigDec ? DataUtil.toIntExact(bigDec) : null;
+            if (decoded != null) {
+                values[i] = decoded;
+            } else {
+                nulls.set(i);
+                if (value != null) {
+                    failureCount++;
+                }
+            }
+        }
+        return new IntColumn(values, nulls, failureCount);
+    }
+
+    public static LongColumn decodeTimestampMicros(final List<Object[]> rows, final int columnIndex) {
+        final long[] values = new long[rows.size()];
+        final BitSet nulls = new BitSet(rows.size());
+        int failureCount = 0;
+        for (int i = 0; i < values.length; i++) {
+            final Object value = rows.get(i)[columnIndex];
+            if (value instanceof Timestamp timestamp) {
+                // getTime() already contains the milliseconds of getNanos(), keep whole seconds only
+                values[i] = Math.floorDiv(timestamp.getTime(), MILLIS_PER_SECOND) * MICROS_PER_SECOND
+                    + timestamp.getNanos() / NANOS_PER_MICRO;
+            } else {
+                nulls.set(i);
+                if (value != null) {
+                    failureCount++;
+                }
+            }
+        }
+        return new LongColumn(values, nulls, failureCount);
+    }
+
+    public static DictionaryColumn decodeStrings(final List<Object[]> rows, final int columnIndex) {
+        final int[] codes = new int[rows.size()];
+        final Map<String, Integer> codeByValue = new HashMap<>();
+        final List<String> dictionary = new ArrayList<>();
+        for (int i = 0; i < codes.length; i++) {
+            final Object value = rows.get(i)[columnIndex];
+            if (value == null) {
+                codes[i] = DictionaryColumn.NULL_CODE;
+                continue;
+            }
+            final String string = value.toString();
+            Integer code = codeByValue.get(string);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(string);
+                codeByValue.put(string, code);
+            }
+            codes[i] = code;
+        }
+        return new DictionaryColumn(codes, dictionary.toArray(new String[0]));
+    }
+
+    /**
+     * Stable sort of row indexes by key, rows flagged in nulls go last.
+     */
+    static int[] sortIndexes(final long[] keys, final BitSet nulls) {
+        final int[] indexes = new int[keys.length];
+        int nonNullCount = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (!nulls.get(i)) {
+                indexes[nonNullCount++] = i;
+            }
+        }
+        int nullIndex = nonNullCount;
+        for (int i = nulls.nextSetBit(0); i >= 0 && i < keys.length; i = nulls.nextSetBit(i + 1)) {
+            indexes[nullIndex++] = i;
+        }
+        mergeSort(indexes, Arrays.copyOf(indexes, nonNullCount), 0, nonNullCount, keys);
+        return indexes;
+    }
+
+    /**
+     * Sort target[from, to) by key, source holds the same indexes and is used as scratch space.
+     */
+    private static void mergeSort(final int[] target, final int[] source, final int from, final int to, final long[] keys) {
+        if (to - from < 2) {
+            return;
+        }
+        final int middle = (from + to) >>> 1;
+        mergeSort(source, target, from, middle, keys);
+        mergeSort(source, target, middle, to, keys);
+        for (int i = from, left = from, right = middle; i < to; i++) {
+            if (right >= to || left < middle && keys[source[left]] <= keys[source[right]]) {
+                target[i] = source[left++];
+            } else {
+                target[i] = source[right++];
+            }
+        }
+    }
+
+    public static final class IntColumn {
+
+        private final int[] values;
+        private final BitSet nulls;
+        private final int failureCount;
+
+        IntColumn(final int[] values, final BitSet nulls, final int failureCount) {
+            this.values = values;
+            this.nulls = nulls;
+            this.failureCount = failureCount;
+        }
+
+        public int size() {
+            return values.length;
+        }
+
+        public boolean isNull(final int row) {
+            return nulls.get(row);
+        }
+
+        /**
+         * @return the value of row, or defaultValue if it is null
+         */
+        public int get(final int row, final int defaultValue) {
+            return nulls.get(row) ? defaultValue : values[row];
+        }
+
+        public int getNonNullCount() {
+            return values.length - nulls.cardinality();
+        }
+
+        public int getFailureCount() {
+            return failureCount;
+        }
+
+        public long sum() {
+            long sum = 0;
+            for (int i = nulls.nextClearBit(0); i < values.length; i = nulls.nextClearBit(i + 1)) {
+                sum += values[i];
+            }
+            return sum;
+        }
+
+        public OptionalInt min() {
+            boolean found = false;
+            int min = Integer.MAX_VALUE;
+            for (int i = nulls.nextClearBit(0); i < values.length; i = nulls.nextClearBit(i + 1)) {
+                min = Math.min(min, values[i]);
+                found = true;
+            }
+            return found ? OptionalInt.of(min) : OptionalInt.empty();
+        }
+
+        public OptionalInt max() {
+            boolean found = false;
+            int max = Integer.MIN_VALUE;
+            for (int i = nulls.nextClearBit(0); i < values.length; i = nulls.nextClearBit(i + 1)) {
+                max = Math.max(max, values[i]);
+                found = true;
+            }
+            return found ? OptionalInt.of(max) : OptionalInt.empty();
+        }
+
+        public OptionalDouble average() {
+            final int count = getNonNullCount();
+            return count == 0 ? OptionalDouble.empty() : OptionalDouble.of((double) sum() / count);
+        }
+
+        /**
+         * @return row indexes in ascending value order, stable, null rows last
+         */
+        public int[] sortedIndexes() {
+            final long[] keys = new long[values.length];
+            for (int i = 0; i < values.length; i++) {
+                keys[i] = values[i];
+            }
+            return sortIndexes(keys, nulls);
+        }
+    }
+
+    public static final class LongColumn {
+
+        private final long[] values;
+        private final BitSet nulls;
+        private final int failureCount;
+
+        LongColumn(final long[] values, final BitSet nulls, final int failureCount) {
+            this.values = values;
+            this.nulls = nulls;
+            this.failureCount = failureCount;
+        }
+
+        public int size() {
+            return values.length;
+        }
+
+        public boolean isNull(final int row) {
+            return nulls.get(row);
+        }
+
+        /**
+         * @return epoch microseconds of row, or defaultValue if it is null
+         */
+        public long get(final int row, final long defaultValue) {
+            return nulls.get(row) ? defaultValue : values[row];
+        }
+
+        /**
+         * Same value as {@link DataUtil#timestamp2LocalDateTime(Object)} on the original cell.
+         */
+        public LocalDateTime getLocalDateTime(final int row) {
+            if (nulls.get(row)) {
+                return null;
+            }
+            final long micros = values[row];
+            final Timestamp timestamp = new Timestamp(Math.floorDiv(micros, MICROS_PER_MILLI));
+            timestamp.setNanos((int) Math.floorMod(micros, MICROS_PER_SECOND) * NANOS_PER_MICRO);
+            return timestamp.toLocalDateTime();
+        }
+
+        public int getFailureCount() {
+            return failureCount;
+        }
+
+        public OptionalLong min() {
+            boolean found = false;
+            long min = Long.MAX_VALUE;
+            for (int i = nulls.nextClearBit(0); i < values.length; i = nulls.nextClearBit(i + 1)) {
+                min = Math.min(min, values[i]);
+                found = true;
+            }
+            return found ? OptionalLong.of(min) : OptionalLong.empty();
+        }
+
+        public OptionalLong max() {
+            boolean found = false;
+            long max = Long.MIN_VALUE;
+            for (int i = nulls.nextClearBit(0); i < values.length; i = nulls.nextClearBit(i + 1)) {
+                max = Math.max(max, values[i]);
+                found = true;
+            }
+            return found ? OptionalLong.of(max) : OptionalLong.empty();
+        }
+
+        /**
+         * @return row indexes in ascending time order, stable, null rows last
+         */
+        public int[] sortedIndexes() {
+            return sortIndexes(values, nulls);
+        }
+    }
+
+    public static final class DictionaryColumn {
+
+        public static final int NULL_CODE = -1;
+
+        private final int[] codes;
+        private final String[] dictionary;
+
+        DictionaryColumn(final int[] codes, final String[] dictionary) {
+            this.codes = codes;
+            this.dictionary = dictionary;
+        }
+
+        public int size() {
+            return codes.length;
+        }
+
+        /**
+         * @return dictionary code of row, or {@link #NULL_CODE}
+         */
+        public int getCode(final int row) {
+            return codes[row];
+        }
+
+        public String get(final int row) {
+            final int code = codes[row];
+            return code == NULL_CODE ? null : dictionary[code];
+        }
+
+        public int getDictionarySize() {
+            return dictionary.length;
+        }
+
+        public String getDictionaryValue(final int code) {
+            return dictionary[code];
+        }
+
+        /**
+         * @return number of rows by dictionary code
+         */
+        public int[] countByCode() {
+            final int[] counts = new int[dictionary.length];
+            for (final int code : codes) {
+                if (code != NULL_CODE) {
+                    counts[code]++;
+                }
+            }
+            return counts;
+        }
+
+        /**
+         * @return sum of the non-null values of column by dictionary code of this column
+         */
+        public long[] sumByCode(final IntColumn column) {
+            if (column.size() != codes.length) {
+                throw new IllegalArgumentException("Column size " + column.size() + " does not match " + codes.length + ".");
+            }
+            final long[] sums = new long[dictionary.length];
+            for (int i = 0; i < codes.length; i++) {
+                if (codes[i] != NULL_CODE && !column.isNull(i)) {
+                    sums[codes[i]] += column.values[i];
+                }
+            }
+            return sums;
+        }
+
+        /**
+         * @return row indexes in ascending string order, stable, null rows last
+         */
+        public int[] sortedIndexes() {
+            final Integer[] byValue = new Integer[dictionary.length];
+            for (int i = 0; i < byValue.length; i++) {
+                byValue[i] = i;
+            }
+            Arrays.sort(byValue, (code1, code2) -> dictionary[code1].compareTo(dictionary[code2]));
+            final long[] rankByCode = new long[dictionary.length];
+            for (int rank = 0; rank < byValue.length; rank++) {
+                rankByCode[byValue[rank]] = rank;
+            }
+            final long[] keys = new long[codes.length];
+            final BitSet nulls = new BitSet(codes.length);
+            for (int i = 0; i < codes.length; i++) {
+                if (codes[i] == NULL_CODE) {
+                    nulls.set(i);
+                } else {
+                    keys[i] = rankByCode[codes[i]];
+                }
+            }
+            return sortIndexes(keys, nulls);
+        }
+    }
+
+}
@@ -8,17 +8,23 @@ import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
@@ -27,23 +33,24 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.cbxsoftware.rest.configuration.JacksonConfig;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 
 import org.apache.commons.collections.CollectionUtils;
-import org.apache.commons.collections4.IterableUtils;
-import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.hibernate.Hibernate;
-import org.springframework.cglib.beans.BeanMap;
 import org.springframework.core.io.ClassPathResource;
 
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.type.TypeFactory;
 
@@ -56,6 +63,11 @@ import com.cbxsoftware.rest.configuration.JacksonConfig;
 @SuppressWarnings({"unused", "WeakerAccess"})
 public class CommonUtil {
 
+    /**
+     * Plain mapper for {@link #objToMap(Object)}, ObjectMapper is thread-safe once configured.
+     */
+    private static final ObjectMapper OBJ_TO_MAP_MAPPER = new ObjectMapper();
+
     private CommonUtil() {
     }
 
@@ -89,21 +101,46 @@ public class CommonUtil {
 
     @SafeVarargs
     public static <T> ArrayList<T> concatLists(final List<? extends T>... lists) {
-        final ArrayList<T> result = new ArrayList<>();
-        Stream.of(lists)
-            .filter(Objects::nonNull)
-            .flatMap(Stream::of)
-            .forEach(result::addAll);
+        int size = 0;
+        for (final List<? extends T> list : lists) {
+            size += list == null ? 0 : list.size();
+        }
+        final ArrayList<T> result = new ArrayList<>(size);
+        for (final List<? extends T> list : lists) {
+            if (list != null) {
+                result.addAll(list);
+            }
+        }
         return result;
     }
 
+    /**
+     * Read-only view of the lists one after another, without copying.
+     *
+     * @see ListViews#concat(List[])
+     */
+    @SafeVarargs
+    public static <T> List<T> concatListsView(final List<? extends T>... lists) {
+        return ListViews.concat(lists);
+    }
+
+    /**
+     * Read-only view of the list with value inserted at index, without copying.
+     *
+     * @see ListViews#insert(List, int, Object)
+     */
+    public static <T> List<T> insertToListView(final List<? extends T> list, final int index, final T value) {
+        return ListViews.insert(list, index, value);
+    }
+
     @SafeVarargs
     public static <T> io.vavr.collection.List<T> concatListsVavr(final Iterable<T>... lists) {
-        io.vavr.collection.List<T> result = io.vavr.collection.List.empty();
+        // appendAll copies the whole persistent list each time, collect once instead
+        final ArrayList<T> result = new ArrayList<>();
         for (final Iterable<T> list : lists) {
-            result = result.appendAll(list);
+            list.forEach(result::add);
         }
-        return result;
+        return io.vavr.collection.List.ofAll(result);
     }
 
     public static String joinNonEmpty(final String separator, final String... words) {
@@ -194,6 +231,10 @@ public class CommonUtil {
     }
 
     public static Optional<Class<?>> getListFieldType(final Field field) {
+        return ReflectionMetadataCache.getListFieldType(field, CommonUtil::resolveListFieldType);
+    }
+
+    private static Optional<Class<?>> resolveListFieldType(final Field field) {
         if (!Iterable.class.isAssignableFrom(field.getType())) {
             return Optional.empty();
         }
@@ -224,7 +265,8 @@ public class CommonUtil {
     }
 
     public static Class<?> getFieldActualType(Class<?> objClass, final String fieldId) throws NoSuchFieldException {
-        Field field = objClass.getDeclaredField(fieldId);
+        final Field field = ReflectionMetadataCache.getDeclaredField(objClass, fieldId)
+            .orElseThrow(() -> new NoSuchFieldException(fieldId));
         return getListFieldType(field).orElseGet(field::getType);
     }
 
@@ -265,9 +307,13 @@ public class CommonUtil {
     }
 
     public static Map<String, Object> objToMap(final Object obj) {
-        final ObjectMapper mapper = new ObjectMapper();
-        // noinspection unchecked
-        return mapper.convertValue(obj, Map.class);
+        final long start = UtilMetrics.OBJ_TO_MAP.start();
+        try {
+            // noinspection unchecked
+            return OBJ_TO_MAP_MAPPER.convertValue(obj, Map.class);
+        } finally {
+            UtilMetrics.OBJ_TO_MAP.record(start);
+        }
     }
 
     public static <T> Comparator<T> createEmptyComparator() {
@@ -294,12 +340,17 @@ public class CommonUtil {
 
     public static <T, R> List<R> getMissingData(final List<R> expect,
                                                 final List<T> entities, final Function<T, R> requiredPropGetter) {
-        final List<R> actual = entities.stream()
-            .map(requiredPropGetter)
-            .collect(Collectors.toList());
-        return expect.stream()
-            .filter(item -> !actual.contains(item))
-            .collect(Collectors.toList());
+        final Set<R> actual = newHashSet(entities.size());
+        for (final T entity : entities) {
+            actual.add(requiredPropGetter.apply(entity));
+        }
+        final List<R> missing = new ArrayList<>();
+        for (final R item : expect) {
+            if (!actual.contains(item)) {
+                missing.add(item);
+            }
+        }
+        return missing;
     }
 
     public static <T, S> io.vavr.collection.List<T> orderIn(final io.vavr.collection.List<T> list,
@@ -313,26 +364,83 @@ public class CommonUtil {
      * list = [{1, 'a'}, {2, 'b'}, {3, 'c'}, {4, 'd'}, {5, 'e'}]
      * list = orderIn(list, [2, 3, 1], item => item[0])
      * list == [{2, 'b'}, {3, 'c'}, {1, 'a'}, {4, 'd'}, {5, 'e'}]
+     *
+     * @throws IllegalStateException if two entries of list have the same key
      */
     public static <T, S> List<T> orderIn(final List<T> list, final List<S> byThisOrder,
                                          final Function<T, S> keySelector) {
+        return orderIn(list, byThisOrder, keySelector, DuplicateKeyPolicy.THROW);
+    }
+
+    /**
+     * Same as {@link #orderIn(List, List, Function)} in linear time, with entries of the same key handled by
+     * duplicateKeyPolicy. Entries which are not placed by byThisOrder (including duplicates dropped by
+     * KEEP_FIRST / KEEP_LAST) are appended in their original order, every entry appears exactly once.
+     */
+    public static <T, S> List<T> orderIn(final List<T> list, final List<S> byThisOrder,
+                                         final Function<T, S> keySelector, final DuplicateKeyPolicy duplicateKeyPolicy) {
         if (CollectionUtils.isEmpty(list)) {
             return list;
         }
-        final Map<S, T> keyMap = list.stream()
-            .collect(Collectors.toMap(keySelector, Function.identity()));
-        final List<T> newList = byThisOrder.stream()
-            .map(keyMap::get)
-            .filter(Objects::nonNull)
-            .collect(Collectors.toList());
-        newList.addAll(
-            list.stream()
-                .filter(item -> !newList.contains(item))
-                .collect(Collectors.toList())
-        );
+        final Map<S, List<T>> keyMap = indexBy(list, keySelector, duplicateKeyPolicy);
+        final Set<T> placed = Collections.newSetFromMap(new IdentityHashMap<>(list.size()));
+        final List<T> newList = new ArrayList<>(list.size());
+        for (final S key : byThisOrder) {
+            for (final T item : keyMap.getOrDefault(key, Collections.emptyList())) {
+                if (placed.add(item)) {
+                    newList.add(item);
+                }
+            }
+        }
+        for (final T item : list) {
+            if (!placed.contains(item)) {
+                newList.add(item);
+            }
+        }
         return newList;
     }
 
+    private static <T, S> Map<S, List<T>> indexBy(final List<T> list, final Function<T, S> keySelector,
+                                                  final DuplicateKeyPolicy duplicateKeyPolicy) {
+        final Map<S, List<T>> keyMap = newHashMap(list.size());
+        for (final T item : list) {
+            final S key = keySelector.apply(item);
+            final List<T> items = keyMap.get(key);
+            if (items == null) {
+                final List<T> newItems = new ArrayList<>(1);
+                newItems.add(item);
+                keyMap.put(key, newItems);
+                continue;
+            }
+            switch (duplicateKeyPolicy) {
+                case THROW -> throw new IllegalStateException("Duplicate key " + key);
+                case KEEP_FIRST -> {
+                }
+                case KEEP_LAST -> items.set(0, item);
+                case KEEP_ALL -> items.add(item);
+            }
+        }
+        return keyMap;
+    }
+
+    /**
+     * HashMap which holds expectedSize entries without resize.
+     */
+    public static <K, V> HashMap<K, V> newHashMap(final int expectedSize) {
+        return new HashMap<>(hashCapacity(expectedSize));
+    }
+
+    /**
+     * HashSet which holds expectedSize entries without resize.
+     */
+    public static <T> HashSet<T> newHashSet(final int expectedSize) {
+        return new HashSet<>(hashCapacity(expectedSize));
+    }
+
+    private static int hashCapacity(final int expectedSize) {
+        return expectedSize < 3 ? 4 : (int) Math.min(Integer.MAX_VALUE, (long) expectedSize * 4 / 3 + 1);
+    }
+
     /**
      * Remove duplicated value by keySelector.
      *
@@ -342,7 +450,7 @@ public class CommonUtil {
                                           final Function<V, K> keySelector,
                                           final Predicate<V> mergeFunction
     ) {
-        final LinkedHashMap<K, V> map = new LinkedHashMap<>();
+        final LinkedHashMap<K, V> map = new LinkedHashMap<>(hashCapacity(list.size()));
         for (final V entry : list) {
             map.compute(
                 keySelector.apply(entry),
@@ -356,6 +464,14 @@ public class CommonUtil {
     }
 
     public static List<String> getStaticFinalStringFieldValues(final Class<?> type) {
+        return new ArrayList<>(ReflectionMetadataCache.getStaticFinalStringFieldValues(type, CommonUtil::resolveStaticFinalStringFieldValues));
+    }
+
+    private static List<String> resolveStaticFinalStringFieldValues(final Class<?> type) {
+        final GeneratedReflectionMetadata generated = ReflectionMetadataCache.getGenerated(type);
+        if (generated != null && generated.getStaticFinalStringFieldValues() != null) {
+            return generated.getStaticFinalStringFieldValues();
+        }
         return Stream.of(type.getDeclaredFields())
             .filter(field -> Modifier.isStatic(field.getModifiers()))
             .filter(field -> Modifier.isFinal(field.getModifiers()))
@@ -390,40 +506,141 @@ public class CommonUtil {
      */
     @SneakyThrows
     public static <T> Optional<T> readJson(final String resourcePath, final Class<T> valueType) {
+        final long start = UtilMetrics.READ_JSON.start();
         final ObjectMapper objectMapper = SpringUtils.getBean(ObjectMapper.class);
-        try {
-            final InputStream resource2 = new ClassPathResource(resourcePath).getInputStream();
+        try (final InputStream resource2 = new ClassPathResource(resourcePath).getInputStream()) {
             final T value = objectMapper.readValue(resource2, valueType);
             return Optional.of(value);
         } catch (final FileNotFoundException e) {
             return Optional.empty();
+        } finally {
+            UtilMetrics.READ_JSON.record(start);
         }
     }
 
+    /**
+     * Same as {@link #readJson(String, Class)}, but the file is read and parsed once, each call binds a new value.
+     *
+     * @see JsonResourceCache
+     */
+    public static <T> Optional<T> readJsonCached(final String resourcePath, final Class<T> valueType) {
+        return JsonResourceCache.get(resourcePath, valueType);
+    }
+
     @SneakyThrows
     public static <T> Optional<T> readJson(final InputStream inputStream, final Class<T> valueType) {
+        final long start = UtilMetrics.READ_JSON.start();
         final ObjectMapper objectMapper = SpringUtils.getBean(ObjectMapper.class);
         try {
             final T value = objectMapper.readValue(inputStream, valueType);
             return Optional.of(value);
         } catch (final FileNotFoundException e) {
             return Optional.empty();
+        } finally {
+            UtilMetrics.READ_JSON.record(start);
         }
     }
 
-    public static <T> List<T> flattenIterableItems(final Iterable<T> entries, final Function<T, Iterable<T>> childEntriesGetter) {
-        final List<T> resultList = IterableUtils.toList(entries);
-        for (final T entry : entries) {
-            final Iterable<T> childEntries = childEntriesGetter.apply(entry);
-            if (IterableUtils.isEmpty(childEntries)) {
-                continue;
+    /**
+     * Lazily read the elements of a json array (or a sequence of root level values) from the input stream, one
+     * element in memory at a time. The stream must be closed by the caller, which also closes the input stream.
+     */
+    @SneakyThrows
+    public static <T> Stream<T> readJsonStream(final InputStream inputStream, final Class<T> valueType) {
+        final MappingIterator<T> iterator;
+        try {
+            final ObjectMapper objectMapper = SpringUtils.getBean(ObjectMapper.class);
+            iterator = objectMapper.readerFor(valueType).readValues(inputStream);
+        } catch (final Exception e) {
+            // the returned stream did not take ownership of the input stream yet
+            Try.run(inputStream::close);
+            throw e;
+        }
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+            .onClose(() -> Try.run(iterator::close));
+    }
+
+    /**
+     * Lazily read the elements of a json array file under the "/src/resources" directory.
+     *
+     * @return Stream.empty() if file not found, or throw exceptions if other error occur.
+     */
+    @SneakyThrows
+    public static <T> Stream<T> readJsonStream(final String resourcePath, final Class<T> valueType) {
+        final InputStream inputStream;
+        try {
+            inputStream = new ClassPathResource(resourcePath).getInputStream();
+        } catch (final FileNotFoundException e) {
+            return Stream.empty();
+        }
+        return readJsonStream(inputStream, valueType);
+    }
+
+    /**
+     * Same as {@link #readJsonStream(InputStream, Class)}, but elements are grouped into chunks of batchSize,
+     * the last chunk may be smaller.
+     */
+    public static <T> Stream<List<T>> readJsonStream(final InputStream inputStream, final Class<T> valueType,
+                                                     final int batchSize) {
+        checkBatchSize(batchSize);
+        return batch(readJsonStream(inputStream, valueType), batchSize);
+    }
+
+    public static <T> Stream<List<T>> readJsonStream(final String resourcePath, final Class<T> valueType,
+                                                     final int batchSize) {
+        checkBatchSize(batchSize);
+        return batch(readJsonStream(resourcePath, valueType), batchSize);
+    }
+
+    private static void checkBatchSize(final int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+    }
+
+    private static <T> Stream<List<T>> batch(final Stream<T> stream, final int batchSize) {
+        final Iterator<T> iterator = stream.iterator();
+        final Iterator<List<T>> batchIterator = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
             }
-            for (final T childEntry : childEntries) {
-                resultList.add(childEntry);
+
+            @Override
+            public List<T> next() {
+                final List<T> batch = new ArrayList<>(batchSize);
+                do {
+                    batch.add(iterator.next());
+                } while (batch.size() < batchSize && iterator.hasNext());
+                return batch;
             }
-            resultList.addAll(flattenIterableItems(childEntries, childEntriesGetter));
-        }
-        return resultList;
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(batchIterator, Spliterator.ORDERED), false)
+            .onClose(stream::close);
+    }
+
+    /**
+     * Flatten the entries and all their descendants level by level, each entry appears once.
+     */
+    public static <T> List<T> flattenIterableItems(final Iterable<T> entries, final Function<T, Iterable<T>> childEntriesGetter) {
+        return flattenStream(entries, childEntriesGetter, TreeFlattener.TraversalOrder.BREADTH_FIRST)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Lazily flatten the entries and all their descendants without recursion.
+     *
+     * @see TreeFlattener
+     */
+    public static <T> Stream<T> flattenStream(final Iterable<T> entries, final Function<T, Iterable<T>> childEntriesGetter,
+                                              final TreeFlattener.TraversalOrder order) {
+        return TreeFlattener.stream(entries, childEntriesGetter, order);
+    }
+
+    public static <T> Stream<T> flattenStream(final Iterable<T> entries, final Function<T, Iterable<T>> childEntriesGetter,
+                                              final TreeFlattener.TraversalOrder order, final int maxDepth,
+                                              final boolean detectCycles) {
+        return TreeFlattener.stream(entries, childEntriesGetter, order, maxDepth, detectCycles);
     }
 
     /**
@@ -442,11 +659,36 @@ public class CommonUtil {
         return results;
     }
 
+    /**
+     * Lazy version of {@link #cartesianProductList(List, List, BiFunction)}, products are created on demand and
+     * the stream can be consumed in parallel.
+     */
+    public static <T, U, R> Stream<R> cartesianProductStream(final List<T> list1, final List<U> list2,
+                                                             final BiFunction<T, U, R> productBy) {
+        return CartesianProduct.stream(list1, list2, productBy);
+    }
+
+    /**
+     * Lazy cartesian product of any number of lists, productBy receives one element per list.
+     */
+    public static <T, R> Stream<R> cartesianProductStream(final List<? extends List<? extends T>> lists,
+                                                          final Function<List<T>, R> productBy) {
+        return CartesianProduct.stream(lists, productBy);
+    }
+
     public static List<Method> getGetterMethods(final Object obj) {
         return getGetterMethods(obj.getClass());
     }
 
     public static List<Method> getGetterMethods(final Class<?> cls) {
+        return new ArrayList<>(ReflectionMetadataCache.getGetterMethods(cls, CommonUtil::resolveGetterMethods));
+    }
+
+    private static List<Method> resolveGetterMethods(final Class<?> cls) {
+        final GeneratedReflectionMetadata generated = ReflectionMetadataCache.getGenerated(cls);
+        if (generated != null && generated.getGetterMethods() != null) {
+            return generated.getGetterMethods();
+        }
         final List<Method> getters = Stream.of(cls.getMethods())
             .filter(method -> Modifier.isPublic(method.getModifiers()))
             .filter(method -> isGetterMethodName(method.getName()))
@@ -487,15 +729,18 @@ public class CommonUtil {
     }
 
     public static <T> Map<String, Object> beanToMap(final T bean) {
-        final Map<String, Object> map = new HashMap<>();
         if (bean == null) {
-            return map;
+            return new HashMap<>();
         }
-        final BeanMap beanMap = BeanMap.create(bean);
-        for (final Object key : beanMap.keySet()) {
-            map.put(ObjectUtils.toString(key, ""), beanMap.get(key));
+        return BeanIntrospector.toPropertyMap(bean);
+    }
+
+    public static <T> List<Map<String, Object>> beansToMaps(final List<T> beans) {
+        final List<Map<String, Object>> maps = new ArrayList<>(CollectionUtils.size(beans));
+        for (final T bean : safeCollection(beans)) {
+            maps.add(beanToMap(bean));
         }
-        return map;
+        return maps;
     }
 
     public static <T> void initNullList(final T entity) {
@@ -521,6 +766,10 @@ public class CommonUtil {
     }
 
     public static Optional<Class<?>> getNestListFieldType(final Field field) {
+        return ReflectionMetadataCache.getNestListFieldType(field, CommonUtil::resolveNestListFieldType);
+    }
+
+    private static Optional<Class<?>> resolveNestListFieldType(final Field field) {
         if (!Iterable.class.isAssignableFrom(field.getType())) {
             return Optional.empty();
         }
@@ -530,6 +779,15 @@ public class CommonUtil {
     }
 
     public static Class<?> getInterfaceGenericClazz(final Class<?> interfaceClass, final Integer number) {
+        return ReflectionMetadataCache.getInterfaceGenericClazz(interfaceClass, number, CommonUtil::resolveInterfaceGenericClazz);
+    }
+
+    private static Class<?> resolveInterfaceGenericClazz(final Class<?> interfaceClass, final Integer number) {
+        final GeneratedReflectionMetadata generated = ReflectionMetadataCache.getGenerated(interfaceClass);
+        final Class<?> generatedClazz = generated != null ? generated.getInterfaceGenericClass(number) : null;
+        if (generatedClazz != null) {
+            return generatedClazz;
+        }
         final Type[] genericInterfaces = interfaceClass.getGenericInterfaces();
 
         for (final Type genericInterface : genericInterfaces) {
@@ -546,6 +804,15 @@ public class CommonUtil {
     }
 
     public static Class<?> getParentGenericClazz(final Class<?> currentClazz, final Integer number) {
+        return ReflectionMetadataCache.getParentGenericClazz(currentClazz, number, CommonUtil::resolveParentGenericClazz);
+    }
+
+    private static Class<?> resolveParentGenericClazz(final Class<?> currentClazz, final Integer number) {
+        final GeneratedReflectionMetadata generated = ReflectionMetadataCache.getGenerated(currentClazz);
+        final Class<?> generatedClazz = generated != null ? generated.getParentGenericClass(number) : null;
+        if (generatedClazz != null) {
+            return generatedClazz;
+        }
         ParameterizedType genericSuperclass = (ParameterizedType) currentClazz.getGenericSuperclass();
         return (Class<?>) genericSuperclass.getActualTypeArguments()[number];
     }
@@ -577,26 +844,68 @@ public class CommonUtil {
         return t -> seen.putIfAbsent(keyExtractor.apply(t), Boolean.TRUE) == null;
     }
 
+    /**
+     * Same as {@link #distinctByKey(Function)} remembering at most maxKeys recently seen keys.
+     *
+     * @see DistinctFilters#lru(Function, int)
+     */
+    public static <T> DistinctFilters.DistinctFilter<T> distinctByKeyLru(final Function<? super T, ?> keyExtractor,
+                                                                         final int maxKeys) {
+        return DistinctFilters.lru(keyExtractor, maxKeys);
+    }
+
+    /**
+     * @see DistinctFilters#timeWindow(Function, Duration)
+     */
+    public static <T> DistinctFilters.DistinctFilter<T> distinctByKeyWithin(final Function<? super T, ?> keyExtractor,
+                                                                            final Duration window) {
+        return DistinctFilters.timeWindow(keyExtractor, window);
+    }
+
+    /**
+     * @see DistinctFilters#bloom(Function, long, double)
+     */
+    public static <T> DistinctFilters.DistinctFilter<T> distinctByKeyBloom(final Function<? super T, ?> keyExtractor,
+                                                                           final long expectedKeys,
+                                                                           final double falsePositiveRate) {
+        return DistinctFilters.bloom(keyExtractor, expectedKeys, falsePositiveRate);
+    }
+
+    /**
+     * @see DistinctFilters#bloomOfLong(ToLongFunction, long, double)
+     */
+    public static <T> DistinctFilters.DistinctFilter<T> distinctByLongKeyBloom(final ToLongFunction<? super T> keyExtractor,
+                                                                               final long expectedKeys,
+                                                                               final double falsePositiveRate) {
+        return DistinctFilters.bloomOfLong(keyExtractor, expectedKeys, falsePositiveRate);
+    }
+
+    public static <T> DistinctFilters.DistinctFilter<T> distinctByLongKey(final ToLongFunction<? super T> keyExtractor) {
+        return DistinctFilters.ofLong(keyExtractor);
+    }
+
+    public static <T> DistinctFilters.DistinctFilter<T> distinctByIntKey(final ToIntFunction<? super T> keyExtractor) {
+        return DistinctFilters.ofInt(keyExtractor);
+    }
+
+    /**
+     * Distinct by key keeping the first element of each key in encounter order, also for parallel streams,
+     * where a {@link #distinctByKey(Function)} filter keeps whichever element a thread reaches first.
+     */
+    public static <T> List<T> distinctByKeyOrdered(final Stream<T> stream, final Function<? super T, ?> keyExtractor) {
+        return DistinctFilters.distinctOrdered(stream, keyExtractor);
+    }
+
     public static Map<String, Object> filterEntityFields(Object entity) {
-        Map<String, Object> result = new HashMap<>();
-        Class<?> clazz = entity.getClass();
-        for (Field field : clazz.getDeclaredFields()) {
-            field.setAccessible(true);
-            try {
-                Object value = field.get(entity);
-                if (value != null) {
-                    if (value instanceof ArrayList) {
-                        if (!((ArrayList<?>) value).isEmpty()) {
-                            result.put(field.getName(), value);
-                        }
-                    } else {
-                        result.put(field.getName(), value);
-                    }
-                }
-            } catch (IllegalAccessException e) {
-            }
+        return BeanIntrospector.toNonEmptyFieldMap(entity);
+    }
+
+    public static List<Map<String, Object>> filterEntitiesFields(final List<?> entities) {
+        final List<Map<String, Object>> results = new ArrayList<>(CollectionUtils.size(entities));
+        for (final Object entity : safeCollection(entities)) {
+            results.add(filterEntityFields(entity));
         }
-        return result;
+        return results;
     }
 
 }
@@ -0,0 +1,190 @@
+package com.cbxsoftware.rest.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import com.cbxsoftware.rest.dto.common.CustomTableDto;
+import com.cbxsoftware.rest.entity.common.EmbedCodelist;
+import com.cbxsoftware.rest.entity.common.EmbedHcl;
+import com.cbxsoftware.rest.entity.custFieldDef.CustFieldDefItem;
+import com.cbxsoftware.rest.enums.FieldDataType;
+
+/**
+ * Comparison plan of custom fields, compiled once from a list of {@link CustFieldDefItem} and reused
+ * to detect changes of many {@link CustomTableDto} pairs. The field type of each item is resolved to
+ * a comparator at compile time instead of on every comparison.
+ */
+public final class CustomFieldComparisonPlan {
+
+    private static final int DECIMAL_SCALE = 5;
+    private static final int PARALLEL_THRESHOLD = 2048;
+
+    private static final FieldComparator CODELIST_COMPARATOR = (source, target) ->
+        ObjectUtils.notEqual(((EmbedCodelist) source).getCode(), ((EmbedCodelist) target).getCode());
+    private static final FieldComparator HCL_COMPARATOR = (source, target) ->
+        ObjectUtils.notEqual(((EmbedHcl) source).getHclNodeFullCode(), ((EmbedHcl) target).getHclNodeFullCode());
+    private static final FieldComparator DECIMAL_COMPARATOR = (source, target) ->
+        isDecimalUpdated((BigDecimal) source, (BigDecimal) target);
+    private static final FieldComparator EQUALS_COMPARATOR = ObjectUtils::notEqual;
+
+    private final String[] fieldIds;
+    private final String[] fieldTypes;
+    private final FieldComparator[] comparators;
+
+    private CustomFieldComparisonPlan(final String[] fieldIds, final String[] fieldTypes,
+                                      final FieldComparator[] comparators) {
+        this.fieldIds = fieldIds;
+        this.fieldTypes = fieldTypes;
+        this.comparators = comparators;
+    }
+
+    public static CustomFieldComparisonPlan compile(final List<CustFieldDefItem> custFieldDefItems) {
+        final List<CustFieldDefItem> items = CommonUtil.safeList(custFieldDefItems);
+        final String[] fieldIds = new String[items.size()];
+        final String[] fieldTypes = new String[items.size()];
+        final FieldComparator[] comparators = new FieldComparator[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            fieldIds[i] = items.get(i).getFieldId();
+            fieldTypes[i] = items.get(i).getFieldType();
+            comparators[i] = toComparator(fieldTypes[i]);
+        }
+        return new CustomFieldComparisonPlan(fieldIds, fieldTypes, comparators);
+    }
+
+    /**
+     * @return true if the plan is still up to date with the field ids and types of custFieldDefItems
+     */
+    public boolean isCompiledFrom(final List<CustFieldDefItem> custFieldDefItems) {
+        final List<CustFieldDefItem> items = CommonUtil.safeList(custFieldDefItems);
+        if (items.size() != fieldIds.length) {
+            return false;
+        }
+        for (int i = 0; i < fieldIds.length; i++) {
+            if (!Objects.equals(fieldIds[i], items.get(i).getFieldId())
+                || !Objects.equals(fieldTypes[i], items.get(i).getFieldType())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if any custom field differs between sourceCustomFields and targetCustomFields
+     */
+    public boolean isUpdated(final CustomTableDto sourceCustomFields, final CustomTableDto targetCustomFields) {
+        if (fieldIds.length == 0) {
+            return false;
+        }
+        if (sourceCustomFields == null && targetCustomFields == null) {
+            return false;
+        }
+        final Map<String, Object> sourceDynamicModelMap = sourceCustomFields != null ? sourceCustomFields.getDynamicModelMap() : null;
+        final Map<String, Object> targetDynamicModelMap = targetCustomFields != null ? targetCustomFields.getDynamicModelMap() : null;
+        if (sourceDynamicModelMap == null && targetDynamicModelMap == null) {
+            return false;
+        }
+        for (int i = 0; i < fieldIds.length; i++) {
+            if (isFieldUpdated(i, sourceDynamicModelMap, targetDynamicModelMap)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return ids of the custom fields which differ between sourceCustomFields and targetCustomFields,
+     * in the order of the definitions
+     */
+    public List<String> getUpdatedFieldIds(final CustomTableDto sourceCustomFields, final CustomTableDto targetCustomFields) {
+        final Map<String, Object> sourceDynamicModelMap = sourceCustomFields != null ? sourceCustomFields.getDynamicModelMap() : null;
+        final Map<String, Object> targetDynamicModelMap = targetCustomFields != null ? targetCustomFields.getDynamicModelMap() : null;
+        if (sourceDynamicModelMap == null && targetDynamicModelMap == null) {
+            return Collections.emptyList();
+        }
+        final List<String> updatedFieldIds = new ArrayList<>();
+        for (int i = 0; i < fieldIds.length; i++) {
+            if (isFieldUpdated(i, sourceDynamicModelMap, targetDynamicModelMap)) {
+                updatedFieldIds.add(fieldIds[i]);
+            }
+        }
+        return updatedFieldIds;
+    }
+
+    /**
+     * Detect changes of sourceCustomFields[i] against targetCustomFields[i], large batches are compared in parallel.
+     *
+     * @return updated flag by index
+     */
+    public boolean[] areUpdated(final List<CustomTableDto> sourceCustomFields, final List<CustomTableDto> targetCustomFields) {
+        Objects.requireNonNull(sourceCustomFields);
+        Objects.requireNonNull(targetCustomFields);
+        if (sourceCustomFields.size() != targetCustomFields.size()) {
+            throw new IllegalArgumentException("Size mismatch: " + sourceCustomFields.size() + " source(s) against " +
+                targetCustomFields.size() + " target(s).");
+        }
+        final boolean[] results = new boolean[sourceCustomFields.size()];
+        final IntStream indexes = IntStream.range(0, results.length);
+        (results.length >= PARALLEL_THRESHOLD ? indexes.parallel() : indexes)
+            .forEach(i -> results[i] = isUpdated(sourceCustomFields.get(i), targetCustomFields.get(i)));
+        return results;
+    }
+
+    public int size() {
+        return fieldIds.length;
+    }
+
+    private boolean isFieldUpdated(final int index, final Map<String, Object> sourceDynamicModelMap,
+                                   final Map<String, Object> targetDynamicModelMap) {
+        final Object sourceValue = sourceDynamicModelMap != null ? sourceDynamicModelMap.get(fieldIds[index]) : null;
+        final Object targetValue = targetDynamicModelMap != null ? targetDynamicModelMap.get(fieldIds[index]) : null;
+        if (sourceValue == null && targetValue == null) {
+            return false;
+        }
+        if (sourceValue == null || targetValue == null) {
+            return true;
+        }
+        return comparators[index].isUpdated(sourceValue, targetValue);
+    }
+
+    private static FieldComparator toComparator(final String fieldType) {
+        if (StringUtils.equalsIgnoreCase(fieldType, FieldDataType.CODELIST.getValue())) {
+            return CODELIST_COMPARATOR;
+        } else if (StringUtils.equalsIgnoreCase(fieldType, "HclGroup")) {
+            return HCL_COMPARATOR;
+        } else if (StringUtils.equalsIgnoreCase(fieldType, FieldDataType.DECIMAL.getValue())) {
+            return DECIMAL_COMPARATOR;
+        }
+        return EQUALS_COMPARATOR;
+    }
+
+    /**
+     * Same as comparing both values rounded to scale 5, without rounding when no digit beyond scale 5 exists.
+     */
+    private static boolean isDecimalUpdated(final BigDecimal source, final BigDecimal target) {
+        if (source.scale() <= DECIMAL_SCALE && target.scale() <= DECIMAL_SCALE) {
+            return source.compareTo(target) != 0;
+        }
+        return source.setScale(DECIMAL_SCALE, RoundingMode.HALF_UP)
+            .compareTo(target.setScale(DECIMAL_SCALE, RoundingMode.HALF_UP)) != 0;
+    }
+
+    @FunctionalInterface
+    private interface FieldComparator {
+
+        /**
+         * @param source not null
+         * @param target not null
+         */
+        boolean isUpdated(Object source, Object target);
+    }
+
+}
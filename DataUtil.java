@@ -3,26 +3,61 @@ package com.cbxsoftware.rest.util;
 import javax.annotation.Nullable;
 import java.math.BigDecimal;
 import java.sql.Timestamp;
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
 
 public class DataUtil {
 
     public static Integer bigDec2Int(final Object obj, @Nullable final Integer defaultValue) {
-        if (obj == null) return defaultValue;
-        try {
-            final BigDecimal bigDec = (BigDecimal) obj;
-            return bigDec.intValueExact();
-        } catch (Exception e) {
-            return defaultValue;
-        }
+        if (!(obj instanceof BigDecimal)) return defaultValue;
+        final Integer value = toIntExact((BigDecimal) obj);
+        return value == null ? defaultValue : value;
     }
 
     public static LocalDateTime timestamp2LocalDateTime(final Object obj) {
-        if (obj == null) return null;
+        if (!(obj instanceof Timestamp)) return null;
+        return toLocalDateTime((Timestamp) obj);
+    }
+
+    /**
+     * Map every row of a native query result, e.g. with {@link ColumnConverter}s per column.
+     */
+    public static <R> List<R> mapRows(final List<Object[]> rows, final Function<Object[], R> rowMapper) {
+        final List<R> results = new ArrayList<>(rows.size());
+        for (final Object[] row : rows) {
+            results.add(rowMapper.apply(row));
+        }
+        return results;
+    }
+
+    /**
+     * Same as {@link BigDecimal#intValueExact()} without throwing.
+     *
+     * @return null if bigDec has a nonzero fractional part or is out of the int range
+     */
+    static Integer toIntExact(final BigDecimal bigDec) {
+        if (bigDec.signum() == 0) return 0;
+        final BigDecimal integral = bigDec.scale() > 0 ? bigDec.stripTrailingZeros() : bigDec;
+        if (integral.scale() > 0) return null;
+        // at most 10 integer digits fit in a long without overflow
+        if (integral.precision() - integral.scale() > 10) return null;
+        final long value = integral.longValue();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) return null;
+        return (int) value;
+    }
+
+    /**
+     * Same as {@link Timestamp#toLocalDateTime()} without throwing.
+     *
+     * @return null if the date has no LocalDateTime, e.g. February 29 of a Julian-only leap year such as 1500
+     */
+    static LocalDateTime toLocalDateTime(final Timestamp timestamp) {
         try {
-            Timestamp ts = (Timestamp) obj;
-            return ts.toLocalDateTime();
-        } catch (Exception e) {
+            return timestamp.toLocalDateTime();
+        } catch (final DateTimeException e) {
             return null;
         }
     }
@@ -0,0 +1,349 @@
+package com.cbxsoftware.rest.util;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Memory-bounded and primitive alternatives of {@link CommonUtil#distinctByKey(Function)} for stream filters.
+ * <p>
+ * The bounded variants trade exactness for memory: a key evicted from an LRU or time window passes again,
+ * and a Bloom filter rejects a small, configurable share of unseen keys. All filters are thread-safe and report
+ * how many keys they accepted and rejected and roughly how much heap they hold.
+ */
+public final class DistinctFilters {
+
+    /**
+     * Rough heap cost of a LinkedHashMap entry with a boxed value, the key itself excluded.
+     */
+    private static final long MAP_ENTRY_BYTES = 56L;
+
+    private DistinctFilters() {
+    }
+
+    /**
+     * Remember at most maxKeys keys, the least recently seen key is forgotten first.
+     */
+    public static <T> DistinctFilter<T> lru(final Function<? super T, ?> keyExtractor, final int maxKeys) {
+        if (maxKeys <= 0) {
+            throw new IllegalArgumentException("maxKeys must be positive: " + maxKeys);
+        }
+        final LinkedHashMap<Object, Boolean> seen = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Object, Boolean> eldest) {
+                return size() > maxKeys;
+            }
+        };
+        return new DistinctFilter<>() {
+            @Override
+            protected boolean firstSeen(final T t) {
+                synchronized (seen) {
+                    return seen.put(keyExtractor.apply(t), Boolean.TRUE) == null;
+                }
+            }
+
+            @Override
+            public long getEstimatedMemoryBytes() {
+                synchronized (seen) {
+                    return seen.size() * MAP_ENTRY_BYTES;
+                }
+            }
+        };
+    }
+
+    /**
+     * Reject a key only if it was first accepted less than window ago.
+     */
+    public static <T> DistinctFilter<T> timeWindow(final Function<? super T, ?> keyExtractor, final Duration window) {
+        final long windowNanos = window.toNanos();
+        // insertion ordered, so the oldest accepted key is always first
+        final LinkedHashMap<Object, Long> acceptedAt = new LinkedHashMap<>();
+        return new DistinctFilter<>() {
+            @Override
+            protected boolean firstSeen(final T t) {
+                final long now = System.nanoTime();
+                synchronized (acceptedAt) {
+                    final Iterator<Long> iterator = acceptedAt.values().iterator();
+                    while (iterator.hasNext() && now - iterator.next() >= windowNanos) {
+                        iterator.remove();
+                    }
+                    final Object key = keyExtractor.apply(t);
+                    if (acceptedAt.containsKey(key)) {
+                        return false;
+                    }
+                    acceptedAt.put(key, now);
+                    return true;
+                }
+            }
+
+            @Override
+            public long getEstimatedMemoryBytes() {
+                synchronized (acceptedAt) {
+                    return acceptedAt.size() * MAP_ENTRY_BYTES;
+                }
+            }
+        };
+    }
+
+    /**
+     * Probabilistic filter in constant memory: sized for expectedKeys keys, it wrongly rejects an unseen key
+     * with probability falsePositiveRate (higher once more keys were seen). It never lets a duplicate pass, also
+     * when the same key is tested by several threads at once.
+     * <p>
+     * Strings, numbers, UUIDs and lists of them are hashed to 64 bits. Other keys are hashed by their 32 bit
+     * hashCode, so keys with equal hashCodes always collide; use {@link #bloomOfLong} with a 64 bit key for them.
+     */
+    public static <T> DistinctFilter<T> bloom(final Function<? super T, ?> keyExtractor, final long expectedKeys,
+                                              final double falsePositiveRate) {
+        return bloomOfLong(t -> hash64(keyExtractor.apply(t)), expectedKeys, falsePositiveRate);
+    }
+
+    /**
+     * Same as {@link #bloom}, on a long key: a long id, or a 64 bit hash of the key computed by the caller.
+     * Distinct long keys never collide in the hashing, only in the bits of the filter.
+     */
+    public static <T> DistinctFilter<T> bloomOfLong(final ToLongFunction<? super T> keyExtractor,
+                                                    final long expectedKeys, final double falsePositiveRate) {
+        if (expectedKeys <= 0) {
+            throw new IllegalArgumentException("expectedKeys must be positive: " + expectedKeys);
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be in (0, 1): " + falsePositiveRate);
+        }
+        final double ln2 = Math.log(2);
+        final long bitCount = Math.max(64, (long) Math.ceil(-expectedKeys * Math.log(falsePositiveRate) / (ln2 * ln2)));
+        final int hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedKeys * ln2));
+        final BloomBits bits = new BloomBits(bitCount, hashCount);
+        return new DistinctFilter<>() {
+            @Override
+            protected boolean firstSeen(final T t) {
+                return bits.add(mix(keyExtractor.applyAsLong(t)));
+            }
+
+            @Override
+            public long getEstimatedMemoryBytes() {
+                return bits.getSizeInBytes();
+            }
+        };
+    }
+
+    /**
+     * Exact filter on long keys, kept unboxed in an open addressing hash set.
+     */
+    public static <T> DistinctFilter<T> ofLong(final ToLongFunction<? super T> keyExtractor) {
+        final LongHashSet seen = new LongHashSet();
+        return new DistinctFilter<>() {
+            @Override
+            protected boolean firstSeen(final T t) {
+                return seen.add(keyExtractor.applyAsLong(t));
+            }
+
+            @Override
+            public long getEstimatedMemoryBytes() {
+                return seen.getSizeInBytes();
+            }
+        };
+    }
+
+    /**
+     * Exact filter on int keys, kept unboxed in an open addressing hash set.
+     */
+    public static <T> DistinctFilter<T> ofInt(final ToIntFunction<? super T> keyExtractor) {
+        return ofLong(t -> keyExtractor.applyAsInt(t));
+    }
+
+    /**
+     * Distinct by key keeping the first element of each key in encounter order, also for parallel streams
+     * (each part collects its own first occurrences, parts are merged left before right).
+     */
+    public static <T> List<T> distinctOrdered(final Stream<T> stream, final Function<? super T, ?> keyExtractor) {
+        return List.copyOf(stream
+            .collect(Collectors.toMap(keyExtractor, Function.identity(), CommonUtil.takeFirst(), LinkedHashMap::new))
+            .values());
+    }
+
+    /**
+     * 64 bit hash of a key, equal keys hash equal for the key types handled here.
+     */
+    private static long hash64(final Object key) {
+        if (key == null) {
+            return 0L;
+        } else if (key instanceof CharSequence chars) {
+            // FNV-1a over the chars
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < chars.length(); i++) {
+                h = (h ^ chars.charAt(i)) * 0x100000001b3L;
+            }
+            return h ^ chars.length();
+        } else if (key instanceof Long || key instanceof Integer || key instanceof Short || key instanceof Byte) {
+            return ((Number) key).longValue();
+        } else if (key instanceof Character character) {
+            return character;
+        } else if (key instanceof UUID uuid) {
+            return uuid.getMostSignificantBits() ^ mix(uuid.getLeastSignificantBits());
+        } else if (key instanceof List<?> list) {
+            long h = 1L;
+            for (final Object element : list) {
+                h = h * 0x9e3779b97f4a7c15L + mix(hash64(element));
+            }
+            return h;
+        }
+        return key.hashCode();
+    }
+
+    /**
+     * 64 bit finalizer of MurmurHash3.
+     */
+    private static long mix(final long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Predicate for {@link Stream#filter(Predicate)} which accepts the first element of each key.
+     */
+    public abstract static class DistinctFilter<T> implements Predicate<T> {
+
+        private final LongAdder acceptedCount = new LongAdder();
+        private final LongAdder rejectedCount = new LongAdder();
+
+        @Override
+        public final boolean test(final T t) {
+            final boolean firstSeen = firstSeen(t);
+            (firstSeen ? acceptedCount : rejectedCount).increment();
+            return firstSeen;
+        }
+
+        protected abstract boolean firstSeen(T t);
+
+        public long getAcceptedCount() {
+            return acceptedCount.sum();
+        }
+
+        public long getRejectedCount() {
+            return rejectedCount.sum();
+        }
+
+        /**
+         * @return approximate heap held by the filter, keys referenced by it excluded
+         */
+        public abstract long getEstimatedMemoryBytes();
+    }
+
+    private static final class BloomBits {
+
+        /**
+         * Adds of the same key are serialized by the lock of its stripe, so exactly one of them sees a bit unset.
+         */
+        private static final int LOCK_STRIPES = 64;
+
+        private final Object[] locks = new Object[LOCK_STRIPES];
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+
+        BloomBits(final long bitCount, final int hashCount) {
+            final long wordCount = (bitCount + 63) / 64;
+            if (wordCount > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Bloom filter too large: " + bitCount + " bits");
+            }
+            this.words = new AtomicLongArray((int) wordCount);
+            this.bitCount = wordCount * 64;
+            this.hashCount = hashCount;
+            for (int i = 0; i < LOCK_STRIPES; i++) {
+                locks[i] = new Object();
+            }
+        }
+
+        /**
+         * @return true if at least one bit of the hash was not set yet
+         */
+        boolean add(final long hash) {
+            final long hash1 = hash;
+            final long hash2 = Long.rotateLeft(hash, 32) | 1;
+            synchronized (locks[(int) (hash2 >>> 1) & (LOCK_STRIPES - 1)]) {
+                boolean changed = false;
+                for (int i = 0; i < hashCount; i++) {
+                    final long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                    // other stripes set bits of the same words concurrently
+                    final long mask = 1L << bit;
+                    final long previous = words.getAndAccumulate((int) (bit >>> 6), mask, (word, m) -> word | m);
+                    changed |= (previous & mask) == 0;
+                }
+                return changed;
+            }
+        }
+
+        long getSizeInBytes() {
+            return words.length() * 8L;
+        }
+    }
+
+    private static final class LongHashSet {
+
+        private static final long EMPTY = 0L;
+
+        private long[] slots = new long[16];
+        private int size;
+        private boolean containsEmpty;
+
+        synchronized boolean add(final long key) {
+            if (key == EMPTY) {
+                final boolean added = !containsEmpty;
+                containsEmpty = true;
+                return added;
+            }
+            int index = slot(key, slots.length);
+            while (slots[index] != EMPTY) {
+                if (slots[index] == key) {
+                    return false;
+                }
+                index = (index + 1) & (slots.length - 1);
+            }
+            slots[index] = key;
+            if (++size * 2 > slots.length) {
+                rehash();
+            }
+            return true;
+        }
+
+        synchronized long getSizeInBytes() {
+            return slots.length * 8L;
+        }
+
+        private void rehash() {
+            final long[] oldSlots = slots;
+            slots = new long[oldSlots.length * 2];
+            for (final long key : oldSlots) {
+                if (key != EMPTY) {
+                    int index = slot(key, slots.length);
+                    while (slots[index] != EMPTY) {
+                        index = (index + 1) & (slots.length - 1);
+                    }
+                    slots[index] = key;
+                }
+            }
+        }
+
+        private static int slot(final long key, final int length) {
+            return (int) mix(key) & (length - 1);
+        }
+    }
+
+}
@@ -0,0 +1,347 @@
+package com.cbxsoftware.rest.util;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+
+import jakarta.annotation.Nullable;
+
+import com.cbxsoftware.rest.dto.common.AttachmentDto;
+import com.cbxsoftware.rest.dto.common.CustomTableDto;
+import com.cbxsoftware.rest.dto.common.EmbedCodelistDto;
+
+/**
+ * Structural change detection of DTO graphs, with a comparison plan derived once per class from its bean properties.
+ * <p>
+ * Each property is compared by the rule of its declared type:
+ * <ul>
+ * <li>{@link AttachmentDto}: by id, see {@link AttachmentUtil#isAttachmentUpdated}</li>
+ * <li>{@link EmbedCodelistDto} and lists of it: by code, see {@link AttachmentUtil#isCodelistUpdated} and
+ * {@link AttachmentUtil#isCodelistsUpdated}</li>
+ * <li>{@link CustomTableDto}: by the {@link CustomFieldComparisonPlan} of the class declaring the property, as
+ * header and item custom fields have different definitions, or by equality of the dynamic models without a plan</li>
+ * <li>nested beans and lists of beans: property by property, list elements by index</li>
+ * <li>anything else: by equals, BigDecimals by value regardless of scale</li>
+ * </ul>
+ * A null list equals an empty one, whatever its elements. Change paths read like <code>items[3].unitPrice</code>
+ * or <code>customFields.custField1</code>, an empty path stands for the root objects themselves. A pair of beans
+ * reached again below itself, e.g. through a back-reference from child to parent, is not compared again.
+ */
+public final class DtoDiff {
+
+    private static final ClassValue<ClassPlan> PLANS = new ClassValue<>() {
+        @Override
+        protected ClassPlan computeValue(final Class<?> type) {
+            return new ClassPlan(type);
+        }
+    };
+
+    private static final Rule VALUE_RULE = (source, target, context) ->
+        !isValueEqual(source, target) && context.changed();
+    private static final Rule LIST_RULE = (source, target, context) ->
+        !isValueEqual(nullToEmpty(source), nullToEmpty(target)) && context.changed();
+    private static final Rule ATTACHMENT_RULE = (source, target, context) ->
+        AttachmentUtil.isAttachmentUpdated((AttachmentDto) source, (AttachmentDto) target) && context.changed();
+    private static final Rule CODELIST_RULE = (source, target, context) ->
+        AttachmentUtil.isCodelistUpdated((EmbedCodelistDto) source, (EmbedCodelistDto) target) && context.changed();
+    @SuppressWarnings("unchecked")
+    private static final Rule CODELISTS_RULE = (source, target, context) ->
+        AttachmentUtil.isCodelistsUpdated((List<EmbedCodelistDto>) source, (List<EmbedCodelistDto>) target)
+            && context.changed();
+    private static final Rule CUSTOM_FIELDS_RULE = DtoDiff::compareCustomFields;
+    private static final Rule BEAN_RULE = DtoDiff::compareBeans;
+    private static final Rule BEAN_LIST_RULE = DtoDiff::compareBeanLists;
+
+    private DtoDiff() {
+    }
+
+    /**
+     * @return true on the first difference found between source and target
+     */
+    public static boolean isUpdated(final Object source, final Object target) {
+        return isUpdated(source, target, null);
+    }
+
+    /**
+     * @param customFieldPlans plan of the custom fields declared by a DTO class, null (or a null plan) compares
+     *                         them by equality of their dynamic models
+     */
+    public static boolean isUpdated(final Object source, final Object target,
+                                    @Nullable final Function<Class<?>, CustomFieldComparisonPlan> customFieldPlans) {
+        return compareBeans(source, target, new Context(customFieldPlans, null));
+    }
+
+    /**
+     * @return paths of all differences between source and target, in property order
+     */
+    public static List<String> diff(final Object source, final Object target) {
+        return diff(source, target, null);
+    }
+
+    public static List<String> diff(final Object source, final Object target,
+                                    @Nullable final Function<Class<?>, CustomFieldComparisonPlan> customFieldPlans) {
+        final List<String> changedPaths = new ArrayList<>();
+        compareBeans(source, target, new Context(customFieldPlans, changedPaths));
+        return changedPaths;
+    }
+
+    private static boolean compareBeans(final Object source, final Object target, final Context context) {
+        if (source == null && target == null) {
+            return false;
+        }
+        if (source == null || target == null || source.getClass() != target.getClass()) {
+            return context.changed();
+        }
+        if (!context.visit(source, target)) {
+            return false;
+        }
+        try {
+            return PLANS.get(source.getClass()).compare(source, target, context);
+        } finally {
+            context.leave(source, target);
+        }
+    }
+
+    private static boolean compareBeanLists(final Object source, final Object target, final Context context) {
+        final List<?> sourceList = (List<?>) source;
+        final List<?> targetList = (List<?>) target;
+        final int sourceSize = sourceList == null ? 0 : sourceList.size();
+        final int targetSize = targetList == null ? 0 : targetList.size();
+        for (int i = 0; i < Math.max(sourceSize, targetSize); i++) {
+            final int mark = context.enterIndex(i);
+            final boolean stop = i < sourceSize && i < targetSize
+                ? compareBeans(sourceList.get(i), targetList.get(i), context)
+                : context.changed();
+            context.leave(mark);
+            if (stop) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean compareCustomFields(final Object source, final Object target, final Context context) {
+        final CustomTableDto sourceCustomFields = (CustomTableDto) source;
+        final CustomTableDto targetCustomFields = (CustomTableDto) target;
+        final CustomFieldComparisonPlan customFieldPlan = context.getCustomFieldPlan();
+        if (customFieldPlan == null) {
+            final Map<String, Object> sourceModel = sourceCustomFields != null ? sourceCustomFields.getDynamicModelMap() : null;
+            final Map<String, Object> targetModel = targetCustomFields != null ? targetCustomFields.getDynamicModelMap() : null;
+            return !Objects.equals(sourceModel, targetModel) && context.changed();
+        }
+        if (context.isShortCircuit()) {
+            return customFieldPlan.isUpdated(sourceCustomFields, targetCustomFields);
+        }
+        for (final String fieldId : customFieldPlan.getUpdatedFieldIds(sourceCustomFields, targetCustomFields)) {
+            final int mark = context.enter(fieldId);
+            context.changed();
+            context.leave(mark);
+        }
+        return false;
+    }
+
+    private static boolean isValueEqual(final Object source, final Object target) {
+        if (source instanceof BigDecimal sourceDecimal && target instanceof BigDecimal targetDecimal) {
+            return sourceDecimal.compareTo(targetDecimal) == 0;
+        }
+        return Objects.deepEquals(source, target);
+    }
+
+    private static Object nullToEmpty(final Object list) {
+        return list == null ? Collections.emptyList() : list;
+    }
+
+    private static Rule toRule(final BeanIntrospector.Accessor property) {
+        final Class<?> type = property.getType();
+        if (AttachmentDto.class.isAssignableFrom(type)) {
+            return ATTACHMENT_RULE;
+        } else if (EmbedCodelistDto.class.isAssignableFrom(type)) {
+            return CODELIST_RULE;
+        } else if (CustomTableDto.class.isAssignableFrom(type)) {
+            return CUSTOM_FIELDS_RULE;
+        } else if (List.class.isAssignableFrom(type)) {
+            final Class<?> elementType = getElementType(property.getGenericType());
+            if (elementType != null && EmbedCodelistDto.class.isAssignableFrom(elementType)) {
+                return CODELISTS_RULE;
+            }
+            return elementType != null && isBean(elementType) ? BEAN_LIST_RULE : LIST_RULE;
+        }
+        return isBean(type) ? BEAN_RULE : VALUE_RULE;
+    }
+
+    private static Class<?> getElementType(final Type genericType) {
+        if (genericType instanceof ParameterizedType parameterizedType
+            && parameterizedType.getActualTypeArguments()[0] instanceof Class<?> elementType) {
+            return elementType;
+        }
+        return null;
+    }
+
+    /**
+     * Application classes with readable properties are compared property by property, JDK types by equals.
+     */
+    private static boolean isBean(final Class<?> type) {
+        if (type.isPrimitive() || type.isArray() || type.isEnum() || type.isInterface() || type == Object.class
+            || Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type)) {
+            return false;
+        }
+        final String name = type.getName();
+        return !name.startsWith("java.") && !name.startsWith("javax.") && !name.startsWith("jakarta.")
+            && !BeanIntrospector.getProperties(type).isEmpty();
+    }
+
+    @FunctionalInterface
+    private interface Rule {
+
+        /**
+         * @return true to stop the comparison, i.e. a difference was found in short-circuit mode
+         */
+        boolean compare(Object source, Object target, Context context);
+    }
+
+    private static final class ClassPlan {
+
+        private final Class<?> type;
+        private final BeanIntrospector.Accessor[] properties;
+        private final String[] segments;
+        private final Rule[] rules;
+
+        ClassPlan(final Class<?> type) {
+            this.type = type;
+            final List<BeanIntrospector.Accessor> accessors = BeanIntrospector.getProperties(type);
+            this.properties = accessors.toArray(new BeanIntrospector.Accessor[0]);
+            this.segments = new String[properties.length];
+            this.rules = new Rule[properties.length];
+            for (int i = 0; i < properties.length; i++) {
+                segments[i] = properties[i].getName();
+                // nested plans are resolved on use, so recursive types do not recurse here
+                rules[i] = toRule(properties[i]);
+            }
+        }
+
+        boolean compare(final Object source, final Object target, final Context context) {
+            for (int i = 0; i < properties.length; i++) {
+                final int mark = context.enter(segments[i]);
+                // reset on each property, as nested beans change it
+                context.owner = type;
+                final boolean stop = rules[i].compare(properties[i].get(source), properties[i].get(target), context);
+                context.leave(mark);
+                if (stop) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * State of one comparison: the current path is only tracked when the changed paths are collected.
+     */
+    private static final class Context {
+
+        private final Function<Class<?>, CustomFieldComparisonPlan> customFieldPlans;
+        private final Map<Class<?>, Optional<CustomFieldComparisonPlan>> customFieldPlanByOwner = new HashMap<>();
+        private final List<String> changedPaths;
+        private final StringBuilder path;
+        /**
+         * Targets by source of the bean pairs being compared, from the root down to the current one.
+         */
+        private final Map<Object, List<Object>> comparing = new IdentityHashMap<>();
+        /**
+         * Class declaring the property being compared.
+         */
+        private Class<?> owner;
+
+        Context(final Function<Class<?>, CustomFieldComparisonPlan> customFieldPlans, final List<String> changedPaths) {
+            this.customFieldPlans = customFieldPlans;
+            this.changedPaths = changedPaths;
+            this.path = changedPaths == null ? null : new StringBuilder(64);
+        }
+
+        CustomFieldComparisonPlan getCustomFieldPlan() {
+            if (customFieldPlans == null) {
+                return null;
+            }
+            return customFieldPlanByOwner
+                .computeIfAbsent(owner, type -> Optional.ofNullable(customFieldPlans.apply(type)))
+                .orElse(null);
+        }
+
+        /**
+         * @return false if the pair is already being compared further up
+         */
+        boolean visit(final Object source, final Object target) {
+            final List<Object> targets = comparing.computeIfAbsent(source, key -> new ArrayList<>(1));
+            for (final Object comparingTarget : targets) {
+                if (comparingTarget == target) {
+                    return false;
+                }
+            }
+            targets.add(target);
+            return true;
+        }
+
+        void leave(final Object source, final Object target) {
+            final List<Object> targets = comparing.get(source);
+            targets.remove(targets.size() - 1);
+            if (targets.isEmpty()) {
+                comparing.remove(source);
+            }
+        }
+
+        boolean isShortCircuit() {
+            return changedPaths == null;
+        }
+
+        /**
+         * Record a difference at the current path.
+         *
+         * @return true to stop the comparison
+         */
+        boolean changed() {
+            if (changedPaths == null) {
+                return true;
+            }
+            changedPaths.add(path.toString());
+            return false;
+        }
+
+        int enter(final String segment) {
+            if (path == null) {
+                return 0;
+            }
+            final int mark = path.length();
+            if (mark > 0) {
+                path.append('.');
+            }
+            path.append(segment);
+            return mark;
+        }
+
+        int enterIndex(final int index) {
+            if (path == null) {
+                return 0;
+            }
+            final int mark = path.length();
+            path.append('[').append(index).append(']');
+            return mark;
+        }
+
+        void leave(final int mark) {
+            if (path != null) {
+                path.setLength(mark);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.cbxsoftware.rest.util;
+
+/**
+ * How the key based collection helpers of {@link CommonUtil} treat several entries with the same key.
+ */
+public enum DuplicateKeyPolicy {
+
+    /**
+     * Throw {@link IllegalStateException} on the first duplicated key.
+     */
+    THROW,
+
+    /**
+     * The first entry of a key wins.
+     */
+    KEEP_FIRST,
+
+    /**
+     * The last entry of a key wins.
+     */
+    KEEP_LAST,
+
+    /**
+     * All entries of a key are kept, in encounter order.
+     */
+    KEEP_ALL
+}
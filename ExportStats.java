@@ -0,0 +1,50 @@
+package com.cbxsoftware.rest.util.export;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Progress of a streaming export: rows and bytes written so far and the throughput since the export started.
+ */
+public final class ExportStats {
+
+    private final long rowCount;
+    private final long byteCount;
+    private final long elapsedNanos;
+
+    public ExportStats(final long rowCount, final long byteCount, final long elapsedNanos) {
+        this.rowCount = rowCount;
+        this.byteCount = byteCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    public double getRowsPerSecond() {
+        return perSecond(rowCount);
+    }
+
+    public double getBytesPerSecond() {
+        return perSecond(byteCount);
+    }
+
+    private double perSecond(final long count) {
+        return elapsedNanos <= 0 ? 0 : count * 1_000_000_000d / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows, %d bytes in %d ms (%.0f rows/s, %.0f bytes/s)",
+            rowCount, byteCount, getElapsedMillis(), getRowsPerSecond(), getBytesPerSecond());
+    }
+
+}
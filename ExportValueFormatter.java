@@ -0,0 +1,191 @@
+package com.cbxsoftware.rest.util.export;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Format numbers and date times into a caller-supplied buffer with the exact text of their
+ * <code>toString()</code>, which is what {@link CellValueUtils#getStringValue(Object)} exports.
+ * <p>
+ * Common shapes (integral doubles, BigDecimals with a long unscaled value, four digit years) are written
+ * digit by digit without intermediate objects, anything else falls back to the JDK formatting, which is
+ * shortest round-trip for double and float.
+ */
+public final class ExportValueFormatter {
+
+    /**
+     * Double.toString switches to computerized scientific notation from 10^7 on.
+     */
+    private static final double PLAIN_DOUBLE_LIMIT = 1e7;
+    /**
+     * BigDecimal.toString switches to scientific notation below an adjusted exponent of -6.
+     */
+    private static final int MIN_PLAIN_ADJUSTED_EXPONENT = -6;
+    private static final int NANOS_PER_MILLI = 1_000_000;
+    private static final int NANOS_PER_MICRO = 1_000;
+    /**
+     * 1582-10-16T00:00Z, a day after the Gregorian cutover to cover any zone offset. Timestamp uses the Julian
+     * calendar before the cutover, where dates like 1500-02-29 exist which LocalDateTime rejects.
+     */
+    private static final long GREGORIAN_MILLIS = -12_219_206_400_000L;
+
+    private ExportValueFormatter() {
+    }
+
+    public static void appendDouble(final double value, final StringBuilder out) {
+        final long integral = (long) value;
+        if (integral == value && Math.abs(value) < PLAIN_DOUBLE_LIMIT
+            && (integral != 0 || Double.doubleToRawLongBits(value) == 0L)) {
+            out.append(integral).append(".0");
+            return;
+        }
+        out.append(value);
+    }
+
+    public static void appendFloat(final float value, final StringBuilder out) {
+        final long integral = (long) value;
+        if (integral == value && Math.abs(value) < PLAIN_DOUBLE_LIMIT
+            && (integral != 0 || Float.floatToRawIntBits(value) == 0)) {
+            out.append(integral).append(".0");
+            return;
+        }
+        out.append(value);
+    }
+
+    public static void appendLong(final long value, final StringBuilder out) {
+        out.append(value);
+    }
+
+    public static void appendBigDecimal(final BigDecimal value, final StringBuilder out) {
+        final int scale = value.scale();
+        if (scale < 0 || value.precision() > 18) {
+            out.append(value);
+            return;
+        }
+        final long unscaled = value.unscaledValue().longValue();
+        final long magnitude = Math.abs(unscaled);
+        final int digits = digitCount(magnitude);
+        if (digits - 1 - scale < MIN_PLAIN_ADJUSTED_EXPONENT) {
+            out.append(value);
+            return;
+        }
+        if (unscaled < 0) {
+            out.append('-');
+        }
+        if (scale == 0) {
+            out.append(magnitude);
+        } else if (digits > scale) {
+            final long divisor = pow10(scale);
+            out.append(magnitude / divisor).append('.');
+            appendPadded(magnitude % divisor, scale, out);
+        } else {
+            out.append("0.");
+            appendPadded(magnitude, scale, out);
+        }
+    }
+
+    /**
+     * Same text as {@link LocalDateTime#toString()}.
+     */
+    public static void appendLocalDateTime(final LocalDateTime value, final StringBuilder out) {
+        final int year = value.getYear();
+        if (year < 1000 || year > 9999) {
+            out.append(value);
+            return;
+        }
+        appendDate(year, value.getMonthValue(), value.getDayOfMonth(), out);
+        out.append('T');
+        appendPadded(value.getHour(), 2, out);
+        out.append(':');
+        appendPadded(value.getMinute(), 2, out);
+        final int second = value.getSecond();
+        final int nano = value.getNano();
+        if (second > 0 || nano > 0) {
+            out.append(':');
+            appendPadded(second, 2, out);
+            if (nano > 0) {
+                out.append('.');
+                if (nano % NANOS_PER_MILLI == 0) {
+                    appendPadded(nano / NANOS_PER_MILLI, 3, out);
+                } else if (nano % NANOS_PER_MICRO == 0) {
+                    appendPadded(nano / NANOS_PER_MICRO, 6, out);
+                } else {
+                    appendPadded(nano, 9, out);
+                }
+            }
+        }
+    }
+
+    /**
+     * Same text as {@link Timestamp#toString()}, in the default time zone like Timestamp itself.
+     */
+    public static void appendTimestamp(final Timestamp value, final StringBuilder out) {
+        if (value.getTime() < GREGORIAN_MILLIS) {
+            out.append(value);
+            return;
+        }
+        final LocalDateTime dateTime = value.toLocalDateTime();
+        final int year = dateTime.getYear();
+        if (year > 9999) {
+            out.append(value);
+            return;
+        }
+        appendDate(year, dateTime.getMonthValue(), dateTime.getDayOfMonth(), out);
+        out.append(' ');
+        appendPadded(dateTime.getHour(), 2, out);
+        out.append(':');
+        appendPadded(dateTime.getMinute(), 2, out);
+        out.append(':');
+        appendPadded(dateTime.getSecond(), 2, out);
+        out.append('.');
+        int nanos = value.getNanos();
+        if (nanos == 0) {
+            out.append('0');
+            return;
+        }
+        // nine digits without trailing zeros
+        int width = 9;
+        while (nanos % 10 == 0) {
+            nanos /= 10;
+            width--;
+        }
+        appendPadded(nanos, width, out);
+    }
+
+    private static void appendDate(final int year, final int month, final int day, final StringBuilder out) {
+        out.append(year).append('-');
+        appendPadded(month, 2, out);
+        out.append('-');
+        appendPadded(day, 2, out);
+    }
+
+    /**
+     * Append a non-negative value left padded with zeros to width digits.
+     */
+    private static void appendPadded(final long value, final int width, final StringBuilder out) {
+        for (int i = digitCount(value); i < width; i++) {
+            out.append('0');
+        }
+        out.append(value);
+    }
+
+    private static int digitCount(final long magnitude) {
+        int digits = 1;
+        long threshold = 10;
+        while (digits < 19 && magnitude >= threshold) {
+            digits++;
+            threshold *= 10;
+        }
+        return digits;
+    }
+
+    private static long pow10(final int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 10;
+        }
+        return result;
+    }
+
+}
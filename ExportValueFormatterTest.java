@@ -0,0 +1,163 @@
+package com.cbxsoftware.rest.util.export;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoField;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiConsumer;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Conformance of {@link ExportValueFormatter} with <code>toString()</code>, on edge cases and seeded random values.
+ */
+class ExportValueFormatterTest {
+
+    private static final int RANDOM_VALUES = 200_000;
+    private static final long SEED = 20261018L;
+
+    @Test
+    void appendDoubleMatchesToString() {
+        final List<Double> edgeCases = List.of(0.0, -0.0, 1.0, -1.0, 0.5, -0.5, 0.1, 1e-3, 1e-4,
+            9_999_999.0, 9_999_999.5, 1e7, -1e7, 1e7 + 1, 1.0E-7, 123_456_789.0, 9.223372036854776E18,
+            -9.223372036854776E18, 1e19, Double.MAX_VALUE, -Double.MAX_VALUE, Double.MIN_VALUE, -Double.MIN_VALUE,
+            Double.MIN_NORMAL, Double.longBitsToDouble(0x000F_FFFF_FFFF_FFFFL), Double.longBitsToDouble(1L << 20),
+            Double.NaN, Double.longBitsToDouble(0x7FF8_0000_0000_0001L), Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, 2e-323, 4.9e-324);
+        for (final double value : edgeCases) {
+            assertConforms(value, String.valueOf(value), ExportValueFormatter::appendDouble);
+        }
+        final Random random = new Random(SEED);
+        for (int i = 0; i < RANDOM_VALUES; i++) {
+            final double bits = Double.longBitsToDouble(random.nextLong());
+            assertConforms(bits, String.valueOf(bits), ExportValueFormatter::appendDouble);
+            final double integral = (double) (random.nextLong() >> random.nextInt(64));
+            assertConforms(integral, String.valueOf(integral), ExportValueFormatter::appendDouble);
+            final double fraction = random.nextInt(20_000_000) / 100.0 - 100_000.0;
+            assertConforms(fraction, String.valueOf(fraction), ExportValueFormatter::appendDouble);
+        }
+    }
+
+    @Test
+    void appendFloatMatchesToString() {
+        final List<Float> edgeCases = List.of(0.0f, -0.0f, 1.0f, -1.0f, 0.1f, 1e-3f, 9_999_999.0f, 1e7f, -1e7f,
+            16_777_216.0f, 3.4028235E38f, Float.MIN_VALUE, -Float.MIN_VALUE, Float.MIN_NORMAL,
+            Float.intBitsToFloat(0x007F_FFFF), Float.NaN, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY);
+        for (final float value : edgeCases) {
+            assertConforms(value, String.valueOf(value), ExportValueFormatter::appendFloat);
+        }
+        final Random random = new Random(SEED);
+        for (int i = 0; i < RANDOM_VALUES; i++) {
+            final float bits = Float.intBitsToFloat(random.nextInt());
+            assertConforms(bits, String.valueOf(bits), ExportValueFormatter::appendFloat);
+            final float integral = (float) (random.nextInt() >> random.nextInt(32));
+            assertConforms(integral, String.valueOf(integral), ExportValueFormatter::appendFloat);
+        }
+    }
+
+    @Test
+    void appendLongMatchesToString() {
+        for (final long value : new long[] {0L, 1L, -1L, 10L, Long.MAX_VALUE, Long.MIN_VALUE, Integer.MIN_VALUE}) {
+            assertConforms(value, String.valueOf(value), ExportValueFormatter::appendLong);
+        }
+        final Random random = new Random(SEED);
+        for (int i = 0; i < RANDOM_VALUES; i++) {
+            final long value = random.nextLong() >> random.nextInt(64);
+            assertConforms(value, String.valueOf(value), ExportValueFormatter::appendLong);
+        }
+    }
+
+    @Test
+    void appendBigDecimalMatchesToString() {
+        final List<BigDecimal> edgeCases = List.of(BigDecimal.ZERO, new BigDecimal("-0.00"), new BigDecimal("0E-10"),
+            new BigDecimal("0E+3"), BigDecimal.ONE, new BigDecimal("1E+5"), BigDecimal.valueOf(123, -3),
+            BigDecimal.valueOf(-123, -30), new BigDecimal("0.000001"), new BigDecimal("0.0000001"),
+            new BigDecimal("-0.00000123"), new BigDecimal("123.4500"), BigDecimal.valueOf(1, 18),
+            BigDecimal.valueOf(1, 19), BigDecimal.valueOf(Long.MAX_VALUE, 4), BigDecimal.valueOf(Long.MIN_VALUE, 4),
+            BigDecimal.valueOf(999_999_999_999_999_999L, 18), BigDecimal.valueOf(-999_999_999_999_999_999L, 0),
+            new BigDecimal("1234567890123456789012345678901234567890.5"), BigDecimal.valueOf(42, 400),
+            BigDecimal.valueOf(42, -400), BigDecimal.valueOf(42, Integer.MAX_VALUE),
+            BigDecimal.valueOf(42, Integer.MIN_VALUE + 2));
+        for (final BigDecimal value : edgeCases) {
+            assertConforms(value, value.toString(), ExportValueFormatter::appendBigDecimal);
+        }
+        final Random random = new Random(SEED);
+        for (int i = 0; i < RANDOM_VALUES; i++) {
+            final BigDecimal value = BigDecimal.valueOf(random.nextLong() >> random.nextInt(64), random.nextInt(50) - 10);
+            assertConforms(value, value.toString(), ExportValueFormatter::appendBigDecimal);
+            final BigDecimal large = new BigDecimal(new BigInteger(100, random), random.nextInt(60) - 20);
+            assertConforms(large, large.toString(), ExportValueFormatter::appendBigDecimal);
+        }
+    }
+
+    @Test
+    void appendLocalDateTimeMatchesToString() {
+        final List<LocalDateTime> edgeCases = List.of(LocalDateTime.MIN, LocalDateTime.MAX,
+            LocalDateTime.of(-1, 1, 1, 0, 0), LocalDateTime.of(0, 12, 31, 23, 59, 59, 999_999_999),
+            LocalDateTime.of(999, 12, 31, 23, 59), LocalDateTime.of(1000, 1, 1, 0, 0),
+            LocalDateTime.of(1500, 3, 1, 12, 0, 1), LocalDateTime.of(1582, 10, 4, 0, 0, 0, 1),
+            LocalDateTime.of(1582, 10, 15, 0, 0), LocalDateTime.of(2000, 2, 29, 0, 0, 0, 1_000),
+            LocalDateTime.of(2024, 6, 1, 8, 5, 0, 120_000_000), LocalDateTime.of(9999, 12, 31, 23, 59, 59),
+            LocalDateTime.of(10_000, 1, 1, 0, 0));
+        for (final LocalDateTime value : edgeCases) {
+            assertConforms(value, value.toString(), ExportValueFormatter::appendLocalDateTime);
+        }
+        final Random random = new Random(SEED);
+        final long minDay = ChronoField.EPOCH_DAY.range().getMinimum();
+        final long maxDay = ChronoField.EPOCH_DAY.range().getMaximum();
+        for (int i = 0; i < RANDOM_VALUES; i++) {
+            final long epochDay = i % 2 == 0 ? minDay + (long) (random.nextDouble() * (maxDay - minDay))
+                : random.nextInt(5_000_000) - 2_000_000;
+            final LocalDateTime value = LocalDateTime.of(LocalDate.ofEpochDay(epochDay),
+                LocalTime.ofNanoOfDay(randomNanoOfDay(random)));
+            assertConforms(value, value.toString(), ExportValueFormatter::appendLocalDateTime);
+        }
+    }
+
+    @Test
+    void appendTimestampMatchesToString() {
+        final List<Timestamp> edgeCases = List.of(Timestamp.valueOf("1500-02-29 10:00:00"),
+            Timestamp.valueOf("1582-10-04 23:59:59.999"), Timestamp.valueOf("1582-10-15 00:00:00"),
+            Timestamp.valueOf("1582-10-16 00:00:00.5"), Timestamp.valueOf("0999-12-31 23:59:59"),
+            Timestamp.valueOf("0001-01-01 00:00:00"), Timestamp.valueOf("1000-01-01 00:00:00.000000001"),
+            Timestamp.valueOf("1970-01-01 00:00:00"), Timestamp.valueOf("2000-02-29 12:30:00.120"),
+            Timestamp.valueOf("9999-12-31 23:59:59.999999999"), new Timestamp(253_402_300_800_000L),
+            new Timestamp(Long.MIN_VALUE / 2), new Timestamp(Long.MAX_VALUE / 2));
+        for (final Timestamp value : edgeCases) {
+            assertConforms(value, value.toString(), ExportValueFormatter::appendTimestamp);
+        }
+        final Random random = new Random(SEED);
+        for (int i = 0; i < RANDOM_VALUES; i++) {
+            // years 1 to 11000, around the Gregorian cutover on every fourth value
+            final long millis = i % 4 == 0 ? -12_219_292_800_000L + (long) (random.nextGaussian() * 1e10)
+                : -62_135_596_800_000L + (long) (random.nextDouble() * 409_000_000_000_000L);
+            final Timestamp value = new Timestamp(millis);
+            value.setNanos((int) (randomNanoOfDay(random) % 1_000_000_000L));
+            assertConforms(value, value.toString(), ExportValueFormatter::appendTimestamp);
+        }
+    }
+
+    /**
+     * Nano of day with trailing zeros of every length, as millisecond and microsecond values are the common ones.
+     */
+    private static long randomNanoOfDay(final Random random) {
+        final long nanoOfDay = (long) (random.nextDouble() * 86_400_000_000_000L);
+        final long unit = (long) Math.pow(10, random.nextInt(13));
+        return nanoOfDay / unit * unit;
+    }
+
+    private static <T> void assertConforms(final T value, final String expected,
+                                           final BiConsumer<T, StringBuilder> formatter) {
+        final StringBuilder out = new StringBuilder("prefix|");
+        formatter.accept(value, out);
+        assertEquals("prefix|" + expected, out.toString(), () -> "value " + expected);
+    }
+
+}
@@ -0,0 +1,176 @@
+package com.cbxsoftware.rest.util;
+
+import com.cbxsoftware.rest.enums.FileProtocol;
+
+/**
+ * Parsed view of a protocol & filePath info, e.g. <code>S3:thumbnail/a/b/c.png</code>.
+ * <p>
+ * Path segments are kept as offsets into the source string, nothing is copied until
+ * {@link #getFilePath()} or {@link #getSegment(int)} is called. An instance can be reused
+ * across calls of {@link #parse(String)} to avoid any allocation in bulk processing.
+ * Accepts the legacy 3-segment layout and the 4-segment layout of DFM-544.
+ */
+public final class FilePathRef {
+
+    private static final String THUMBNAIL_STR = "thumbnail/";
+    private static final String LOCAL_PREFIX = LocalFileStore.PROTOCOL + ":";
+    private static final int MIN_SEGMENTS = 3;
+    private static final int MAX_SEGMENTS = 4;
+
+    private String source;
+    private FileProtocol protocol;
+    private boolean local;
+    private boolean thumbnail;
+    private int pathStart;
+    private int segmentCount;
+    private final int[] segmentStarts = new int[MAX_SEGMENTS + 1];
+    private final int[] segmentEnds = new int[MAX_SEGMENTS + 1];
+
+    /**
+     * Parse filePathInfo into a new instance.
+     *
+     * @return null if filePathInfo is not a valid protocol & filePath info
+     */
+    public static FilePathRef of(final String filePathInfo) {
+        final FilePathRef ref = new FilePathRef();
+        return ref.parse(filePathInfo) ? ref : null;
+    }
+
+    /**
+     * Parse filePathInfo into this instance in a single pass.
+     *
+     * @return false if filePathInfo is not a valid protocol & filePath info, this instance is cleared then
+     */
+    public boolean parse(final String filePathInfo) {
+        clear();
+        if (filePathInfo == null) {
+            return false;
+        }
+        final int length = filePathInfo.length();
+        final FileProtocol parsedProtocol;
+        int index;
+        if (filePathInfo.startsWith("S3:")) {
+            parsedProtocol = FileProtocol.S3;
+            index = 3;
+        } else if (filePathInfo.startsWith("AZURE_BLOB:")) {
+            parsedProtocol = FileProtocol.AZURE_BLOB;
+            index = 11;
+        } else if (filePathInfo.startsWith(LOCAL_PREFIX)) {
+            parsedProtocol = null;
+            index = LOCAL_PREFIX.length();
+        } else {
+            return false;
+        }
+        final int parsedPathStart = index;
+        int count = 0;
+        int segmentStart = index;
+        for (; index <= length; index++) {
+            if (index == length || filePathInfo.charAt(index) == '/') {
+                if (index == segmentStart || count == MAX_SEGMENTS + 1) {
+                    clear();
+                    return false;
+                }
+                segmentStarts[count] = segmentStart;
+                segmentEnds[count] = index;
+                count++;
+                segmentStart = index + 1;
+            }
+        }
+        // same as the regex, "thumbnail" is taken as a prefix only if enough segments remain after it
+        final boolean parsedThumbnail = count > MIN_SEGMENTS &&
+            filePathInfo.startsWith(THUMBNAIL_STR, parsedPathStart);
+        if (parsedThumbnail) {
+            System.arraycopy(segmentStarts, 1, segmentStarts, 0, count - 1);
+            System.arraycopy(segmentEnds, 1, segmentEnds, 0, count - 1);
+            count--;
+        }
+        if (count < MIN_SEGMENTS || count > MAX_SEGMENTS) {
+            clear();
+            return false;
+        }
+        this.source = filePathInfo;
+        this.protocol = parsedProtocol;
+        this.local = parsedProtocol == null;
+        this.thumbnail = parsedThumbnail;
+        this.pathStart = parsedPathStart;
+        this.segmentCount = count;
+        return true;
+    }
+
+    public boolean isValid() {
+        return source != null;
+    }
+
+    /**
+     * @return protocol of a cloud storage info, null for a {@link #isLocal() local} one
+     */
+    public FileProtocol getProtocol() {
+        return protocol;
+    }
+
+    /**
+     * @return true for a <code>LOCAL:</code> info, stored by {@link LocalFileStore}
+     */
+    public boolean isLocal() {
+        return local;
+    }
+
+    public boolean isThumbnail() {
+        return thumbnail;
+    }
+
+    /**
+     * @return the filePath after the protocol separator, including the thumbnail prefix if any
+     */
+    public String getFilePath() {
+        return source == null ? null : source.substring(pathStart);
+    }
+
+    public int getPathStart() {
+        return pathStart;
+    }
+
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    public int getSegmentStart(final int index) {
+        checkSegmentIndex(index);
+        return segmentStarts[index];
+    }
+
+    public int getSegmentEnd(final int index) {
+        checkSegmentIndex(index);
+        return segmentEnds[index];
+    }
+
+    public String getSegment(final int index) {
+        checkSegmentIndex(index);
+        return source.substring(segmentStarts[index], segmentEnds[index]);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    private void checkSegmentIndex(final int index) {
+        if (index < 0 || index >= segmentCount) {
+            throw new IndexOutOfBoundsException("Segment index " + index + " out of " + segmentCount);
+        }
+    }
+
+    private void clear() {
+        source = null;
+        protocol = null;
+        local = false;
+        thumbnail = false;
+        pathStart = 0;
+        segmentCount = 0;
+    }
+
+    @Override
+    public String toString() {
+        return source == null ? "FilePathRef[invalid]" : source;
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.cbxsoftware.rest.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import com.cbxsoftware.rest.service.file.FileStorageService;
+
+/**
+ * Offline stand-in of {@link FileStorageService} for benchmarks and local measurements: it signs any path after a
+ * fixed latency, like a remote signer would, and counts the calls. Other methods return empty results.
+ */
+public final class FileStorageServiceStub implements InvocationHandler {
+
+    private final long signingLatencyNanos;
+    private final LongAdder accessUrlCount = new LongAdder();
+
+    private FileStorageServiceStub(final Duration signingLatency) {
+        this.signingLatencyNanos = signingLatency.toNanos();
+    }
+
+    public static FileStorageServiceStub withSigningLatency(final Duration signingLatency) {
+        return new FileStorageServiceStub(signingLatency);
+    }
+
+    public FileStorageService asService() {
+        return (FileStorageService) Proxy.newProxyInstance(FileStorageService.class.getClassLoader(),
+            new Class<?>[]{FileStorageService.class}, this);
+    }
+
+    public long getAccessUrlCount() {
+        return accessUrlCount.sum();
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> "FileStorageServiceStub[signingLatency=" + Duration.ofNanos(signingLatencyNanos) + "]";
+            };
+        }
+        if ("getAccessUrl".equals(method.getName())) {
+            accessUrlCount.increment();
+            if (signingLatencyNanos > 0) {
+                LockSupport.parkNanos(signingLatencyNanos);
+            }
+            return Optional.of("https://files.example.com/" + args[0] + "/" + args[1] + "?signature=stub");
+        }
+        return method.getReturnType() == Optional.class ? Optional.empty() : null;
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.cbxsoftware.rest.util;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Reflection metadata of one class, generated at compile time by {@link ReflectionMetadataProcessor} as
+ * <code>&lt;package&gt;.&lt;Outer$Inner&gt;_ReflectionMetadata</code>, named after the binary name of the class.
+ * <p>
+ * A method returns null when the processor could not determine the value statically, the caller then falls back
+ * to reflection, which also throws the same errors for unresolvable lookups.
+ */
+public interface GeneratedReflectionMetadata {
+
+    String CLASS_NAME_SUFFIX = "_ReflectionMetadata";
+
+    Class<?> getType();
+
+    /**
+     * @return values of the public static final String constants, in declaration order
+     */
+    List<String> getStaticFinalStringFieldValues();
+
+    /**
+     * @return public methods named like getters, see {@link CommonUtil#isGetterMethodName(String)}
+     */
+    List<Method> getGetterMethods();
+
+    Class<?> getInterfaceGenericClass(int number);
+
+    Class<?> getParentGenericClass(int number);
+
+    /**
+     * @return generated class name of type
+     */
+    static String getClassName(final Class<?> type) {
+        return type.getName() + CLASS_NAME_SUFFIX;
+    }
+
+    /**
+     * Used by the generated getter tables.
+     */
+    static Method getMethod(final Class<?> type, final String name, final Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (final NoSuchMethodException e) {
+            throw new IllegalStateException("Generated reflection metadata of " + type.getName() + " is stale.", e);
+        }
+    }
+
+    /**
+     * Same lookup as {@link CommonUtil#getInterfaceGenericClazz(Class, Integer)}: the argument at number of the first
+     * parameterized interface where it is a class.
+     *
+     * @param typeArguments type arguments by parameterized interface, null where an argument is not a class
+     */
+    static Class<?> findTypeArgument(final Class<?>[][] typeArguments, final int number) {
+        for (final Class<?>[] arguments : typeArguments) {
+            if (number < 0 || number >= arguments.length) {
+                return null;
+            }
+            if (arguments[number] != null) {
+                return arguments[number];
+            }
+        }
+        return null;
+    }
+
+}
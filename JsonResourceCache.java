@@ -0,0 +1,117 @@
+package com.cbxsoftware.rest.util;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.core.io.ClassPathResource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache of parsed json files under the "/src/resources" directory, keyed by resource path.
+ * <p>
+ * A file is read and tokenized once into a {@link JsonNode} tree, which is never handed out: every call binds
+ * a fresh value of the requested type from it, so callers may modify what they get without affecting each other.
+ * Missing resources are cached too. With reload enabled (for development), a resource on the file system is
+ * parsed again once its last modified time changes. See {@link JsonResourceCachePreloader} for the settings.
+ */
+@Slf4j
+public final class JsonResourceCache {
+
+    private static final long NOT_A_FILE = -1L;
+    private static final Map<String, Entry> ENTRIES = new ConcurrentHashMap<>();
+    private static volatile boolean reloadEnabled;
+
+    private JsonResourceCache() {
+    }
+
+    /**
+     * @return Optional.empty() if file not found, or throw exceptions if other error occur.
+     */
+    public static <T> Optional<T> get(final String resourcePath, final Class<T> valueType) {
+        final JsonNode tree = getTree(resourcePath);
+        if (tree == null) {
+            return Optional.empty();
+        }
+        final ObjectMapper objectMapper = SpringUtils.getBean(ObjectMapper.class);
+        try {
+            return Optional.ofNullable(objectMapper.treeToValue(tree, valueType));
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Cannot read json resource " + resourcePath + ".", e);
+        }
+    }
+
+    /**
+     * Parse the resources ahead of time, e.g. on startup, so the first requests are served from the cache.
+     */
+    public static void preload(final Collection<String> resourcePaths) {
+        resourcePaths.forEach(JsonResourceCache::getTree);
+    }
+
+    /**
+     * Drop the cached tree of the resource.
+     */
+    public static void invalidate(final String resourcePath) {
+        ENTRIES.remove(resourcePath);
+    }
+
+    public static void invalidateAll() {
+        ENTRIES.clear();
+    }
+
+    public static void setReloadEnabled(final boolean reloadEnabled) {
+        JsonResourceCache.reloadEnabled = reloadEnabled;
+    }
+
+    /**
+     * @return the shared tree, null if the resource does not exist
+     */
+    private static JsonNode getTree(final String resourcePath) {
+        Entry entry = ENTRIES.get(resourcePath);
+        if (entry == null || reloadEnabled && entry.isModified(resourcePath)) {
+            entry = load(resourcePath);
+            ENTRIES.put(resourcePath, entry);
+        }
+        return entry.tree();
+    }
+
+    private static Entry load(final String resourcePath) {
+        final ClassPathResource resource = new ClassPathResource(resourcePath);
+        final long lastModified = getLastModified(resource);
+        final ObjectMapper objectMapper = SpringUtils.getBean(ObjectMapper.class);
+        try (final InputStream inputStream = resource.getInputStream()) {
+            final JsonNode tree = objectMapper.readTree(inputStream);
+            log.debug("Parsed json resource {}", resourcePath);
+            return new Entry(tree, lastModified);
+        } catch (final FileNotFoundException e) {
+            return new Entry(null, lastModified);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Cannot read json resource " + resourcePath + ".", e);
+        }
+    }
+
+    private static long getLastModified(final ClassPathResource resource) {
+        try {
+            return resource.isFile() ? resource.lastModified() : NOT_A_FILE;
+        } catch (final IOException e) {
+            return NOT_A_FILE;
+        }
+    }
+
+    private record Entry(JsonNode tree, long lastModified) {
+
+        boolean isModified(final String resourcePath) {
+            return lastModified != NOT_A_FILE && getLastModified(new ClassPathResource(resourcePath)) != lastModified;
+        }
+    }
+
+}
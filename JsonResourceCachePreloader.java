@@ -0,0 +1,39 @@
+package com.cbxsoftware.rest.util;
+
+import java.util.List;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Apply the {@link JsonResourceCache} settings: <code>json-resource-cache.reload-enabled</code> (for development)
+ * and <code>json-resource-cache.preload</code>, the resource paths parsed once the application is ready.
+ */
+@Slf4j
+@Component
+public class JsonResourceCachePreloader {
+
+    private final String[] resourcePaths;
+
+    public JsonResourceCachePreloader(@Value("${json-resource-cache.preload:}") final String[] resourcePaths,
+                                      @Value("${json-resource-cache.reload-enabled:false}") final boolean reloadEnabled) {
+        this.resourcePaths = resourcePaths;
+        JsonResourceCache.setReloadEnabled(reloadEnabled);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        if (ArrayUtils.isEmpty(resourcePaths)) {
+            return;
+        }
+        final long start = System.currentTimeMillis();
+        JsonResourceCache.preload(List.of(resourcePaths));
+        log.info("Preloaded {} json resources in {} ms", resourcePaths.length, System.currentTimeMillis() - start);
+    }
+
+}
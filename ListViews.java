@@ -0,0 +1,117 @@
+package com.cbxsoftware.rest.util;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Read-only list views which combine existing lists without copying their elements.
+ * <p>
+ * The views read through to the source lists, which must not change size while a view is in use.
+ * Random access is constant time for an inserted view and O(log n) in the number of source lists for a
+ * concatenated view, given random access source lists. Use {@code new ArrayList<>(view)} to materialize.
+ */
+public final class ListViews {
+
+    private ListViews() {
+    }
+
+    /**
+     * View of the lists one after another, null lists are skipped.
+     */
+    @SafeVarargs
+    public static <T> List<T> concat(final List<? extends T>... lists) {
+        final List<List<? extends T>> sources = new ArrayList<>(lists.length);
+        for (final List<? extends T> list : lists) {
+            if (list != null && !list.isEmpty()) {
+                sources.add(list instanceof RandomAccess ? list : new ArrayList<>(list));
+            }
+        }
+        if (sources.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (sources.size() == 1) {
+            return Collections.unmodifiableList(sources.get(0));
+        }
+        return new ConcatenatedList<>(sources);
+    }
+
+    /**
+     * View of the list with value inserted at index, same as {@link List#add(int, Object)} on a copy.
+     */
+    public static <T> List<T> insert(final List<? extends T> list, final int index, final T value) {
+        Objects.requireNonNull(list);
+        if (index < 0 || index > list.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + list.size());
+        }
+        return new InsertedList<>(list instanceof RandomAccess ? list : new ArrayList<>(list), index, value);
+    }
+
+    private static final class ConcatenatedList<T> extends AbstractList<T> implements RandomAccess {
+
+        private final List<List<? extends T>> sources;
+        /**
+         * offsets[i] is the index of the first element of sources[i] in this view
+         */
+        private final int[] offsets;
+        private final int size;
+
+        ConcatenatedList(final List<List<? extends T>> sources) {
+            this.sources = sources;
+            this.offsets = new int[sources.size()];
+            int total = 0;
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = total;
+                total = Math.addExact(total, sources.get(i).size());
+            }
+            this.size = total;
+        }
+
+        @Override
+        public T get(final int index) {
+            Objects.checkIndex(index, size);
+            int source = Arrays.binarySearch(offsets, index);
+            if (source < 0) {
+                source = -source - 2;
+            }
+            return sources.get(source).get(index - offsets[source]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private static final class InsertedList<T> extends AbstractList<T> implements RandomAccess {
+
+        private final List<? extends T> source;
+        private final int insertIndex;
+        private final T value;
+
+        InsertedList(final List<? extends T> source, final int insertIndex, final T value) {
+            this.source = source;
+            this.insertIndex = insertIndex;
+            this.value = value;
+        }
+
+        @Override
+        public T get(final int index) {
+            Objects.checkIndex(index, source.size() + 1);
+            if (index < insertIndex) {
+                return source.get(index);
+            }
+            return index == insertIndex ? value : source.get(index - 1);
+        }
+
+        @Override
+        public int size() {
+            return source.size() + 1;
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.cbxsoftware.rest.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serve the files of the {@link LocalFileStore} at the access urls built by
+ * {@link AttachmentUtil#getFilePathInfoUrl(String)}, i.e. under <code>attachment.local-storage.base-url</code>,
+ * which must be a path of this application for that. Requests without a valid, unexpired signature of the
+ * requested file are rejected with 403, see {@link LocalFileStore#isAuthorized}.
+ * <p>
+ * On Tomcat, files from {@link #SENDFILE_MIN_SIZE} on are handed to the connector through the sendfile request
+ * attributes, as its DefaultServlet does, and written to the socket without copying through the heap. Otherwise
+ * the content is streamed through the buffer of the servlet output stream, never loaded whole.
+ */
+@Slf4j
+@RestController
+@ConditionalOnProperty(prefix = "attachment.local-storage", name = "root")
+public class LocalFileController {
+
+    public static final String DEFAULT_BASE_URL = "/attachments/local";
+    /**
+     * Smaller files are faster to copy than to send with sendfile, same threshold as Tomcat's DefaultServlet
+     */
+    static final long SENDFILE_MIN_SIZE = 48 * 1024;
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    private final String baseUrl;
+
+    public LocalFileController(final AttachmentProperties properties) {
+        this.baseUrl = StringUtils.removeEnd(properties.getLocalStorage().getBaseUrl(), "/");
+    }
+
+    @GetMapping("${attachment.local-storage.base-url:" + DEFAULT_BASE_URL + "}/**")
+    public void getFile(final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+        final LocalFileStore localFileStore = AttachmentUtil.getLocalFileStore();
+        final String filePath = getFilePath(request);
+        if (localFileStore == null || filePath == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!localFileStore.isAuthorized(filePath, request.getParameter(LocalFileStore.EXPIRES_PARAM),
+            request.getParameter(LocalFileStore.SIGNATURE_PARAM))) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        if (!isStored(localFileStore, filePath)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        final Path path = localFileStore.resolve(filePath);
+        final long size = localFileStore.size(filePath);
+        final String contentType = Files.probeContentType(path);
+        response.setContentType(contentType != null ? contentType : "application/octet-stream");
+        response.setContentLengthLong(size);
+        if (size >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+            // the connector writes the file once this method returned
+            request.setAttribute(SENDFILE_FILENAME_ATTR, path.toString());
+            request.setAttribute(SENDFILE_START_ATTR, 0L);
+            request.setAttribute(SENDFILE_END_ATTR, size);
+            return;
+        }
+        try (OutputStream out = response.getOutputStream()) {
+            localFileStore.transferTo(filePath, Channels.newChannel(out));
+        }
+    }
+
+    /**
+     * @return decoded filePath after the base url, null if empty
+     */
+    private String getFilePath(final HttpServletRequest request) {
+        final String encodedPath = request.getRequestURI().substring(request.getContextPath().length());
+        if (!encodedPath.startsWith(baseUrl + "/") || encodedPath.length() == baseUrl.length() + 1) {
+            return null;
+        }
+        // segments were encoded with URLEncoder, spaces as %20
+        return URLDecoder.decode(encodedPath.substring(baseUrl.length() + 1), StandardCharsets.UTF_8);
+    }
+
+    private static boolean isStored(final LocalFileStore localFileStore, final String filePath) {
+        try {
+            return localFileStore.exists(filePath);
+        } catch (final IllegalArgumentException e) {
+            log.warn("Reject local file request: {}", e.getMessage());
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,247 @@
+package com.cbxsoftware.rest.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Attachment storage on the local file system, for on-prem installs, integration tests and offline benchmarks.
+ * <p>
+ * Files are kept under the root directory at their filePath, thumbnails under <code>thumbnail/</code> like on the
+ * cloud storages, and referenced by <code>LOCAL:&lt;filePath&gt;</code> infos. Access urls point to baseUrl, served
+ * by {@link LocalFileController}. Like the signed urls of the cloud storages they expire: each one carries its
+ * expiry and an HMAC-SHA256 signature of filePath and expiry, checked by {@link #isAuthorized}.
+ */
+public class LocalFileStore {
+
+    public static final String PROTOCOL = "LOCAL";
+    public static final String EXPIRES_PARAM = "expires";
+    public static final String SIGNATURE_PARAM = "signature";
+    private static final String THUMBNAIL_STR = "thumbnail/";
+    private static final String SIGNATURE_ALGORITHM = "HmacSHA256";
+
+    private final Path root;
+    private final String baseUrl;
+    private final SecretKeySpec signingKey;
+    private final long urlExpirySeconds;
+    private final Clock clock;
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    /**
+     * @param baseUrl    prefix of the access urls, e.g. <code>/api/attachments/local</code>
+     * @param signingKey key of the url signatures, shared by all instances serving the same root
+     * @param urlExpiry  validity of the access urls
+     */
+    public LocalFileStore(final Path root, final String baseUrl, final byte[] signingKey, final Duration urlExpiry) {
+        this(root, baseUrl, signingKey, urlExpiry, Clock.systemUTC());
+    }
+
+    LocalFileStore(final Path root, final String baseUrl, final byte[] signingKey, final Duration urlExpiry,
+                   final Clock clock) {
+        if (signingKey.length == 0) {
+            throw new IllegalArgumentException("signingKey must not be empty");
+        }
+        this.root = root.toAbsolutePath().normalize();
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.signingKey = new SecretKeySpec(signingKey, SIGNATURE_ALGORITHM);
+        this.urlExpirySeconds = urlExpiry.toSeconds();
+        this.clock = clock;
+    }
+
+    /**
+     * Thumbnails of local files are not generated by a thumbnail generation service, they are stored next to the
+     * files under <code>thumbnail/</code>.
+     */
+    public static String getThumbnailFilePath(final String filePath) {
+        return THUMBNAIL_STR + filePath;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * @throws IllegalArgumentException if filePath escapes the root directory
+     */
+    public Path resolve(final String filePath) {
+        final Path path = root.resolve(filePath).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new IllegalArgumentException("File path outside of the local storage root: " + filePath);
+        }
+        return path;
+    }
+
+    public boolean exists(final String filePath) {
+        return Files.isRegularFile(resolve(filePath));
+    }
+
+    /**
+     * @return signed access url of filePath, empty if no such file is stored, e.g. filePath escapes the root
+     */
+    public Optional<String> getAccessUrl(final String filePath) {
+        try {
+            if (!exists(filePath)) {
+                return Optional.empty();
+            }
+        } catch (final IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        final long expires = clock.instant().getEpochSecond() + urlExpirySeconds;
+        final StringBuilder url = new StringBuilder(baseUrl.length() + filePath.length() + 96).append(baseUrl);
+        for (final String segment : filePath.split("/")) {
+            url.append('/').append(URLEncoder.encode(segment, StandardCharsets.UTF_8).replace("+", "%20"));
+        }
+        url.append('?').append(EXPIRES_PARAM).append('=').append(expires)
+            .append('&').append(SIGNATURE_PARAM).append('=').append(sign(filePath, expires));
+        return Optional.of(url.toString());
+    }
+
+    /**
+     * @param expires   value of the {@link #EXPIRES_PARAM} parameter of the access url, epoch seconds
+     * @param signature value of the {@link #SIGNATURE_PARAM} parameter of the access url
+     * @return true if an access url of filePath issued by this store carried these parameters and has not expired
+     */
+    public boolean isAuthorized(final String filePath, final String expires, final String signature) {
+        if (filePath == null || expires == null || signature == null) {
+            return false;
+        }
+        final long expiresSeconds;
+        try {
+            expiresSeconds = Long.parseLong(expires);
+        } catch (final NumberFormatException e) {
+            return false;
+        }
+        if (expiresSeconds < clock.instant().getEpochSecond()) {
+            return false;
+        }
+        return MessageDigest.isEqual(sign(filePath, expiresSeconds).getBytes(StandardCharsets.US_ASCII),
+            signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @return url-safe base64 HMAC of filePath and expires
+     */
+    private String sign(final String filePath, final long expires) {
+        final Mac mac = macs.get();
+        mac.update(filePath.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) '\n');
+        mac.update(Long.toString(expires).getBytes(StandardCharsets.US_ASCII));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(mac.doFinal());
+    }
+
+    private Mac newMac() {
+        try {
+            final Mac mac = Mac.getInstance(SIGNATURE_ALGORITHM);
+            mac.init(signingKey);
+            return mac;
+        } catch (final GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot create " + SIGNATURE_ALGORITHM, e);
+        }
+    }
+
+    /**
+     * Store content at filePath, replacing any previous file. The content is written to a temporary file first,
+     * so readers never see a partial file.
+     *
+     * @return number of bytes stored
+     */
+    public long store(final String filePath, final InputStream content) {
+        final Path path = resolve(filePath);
+        try {
+            Files.createDirectories(path.getParent());
+            final Path temporary = Files.createTempFile(path.getParent(), ".upload", ".tmp");
+            try {
+                final long size = Files.copy(content, temporary, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return size;
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Cannot store " + filePath, e);
+        }
+    }
+
+    public boolean delete(final String filePath) {
+        try {
+            return Files.deleteIfExists(resolve(filePath));
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Cannot delete " + filePath, e);
+        }
+    }
+
+    public long size(final String filePath) {
+        try {
+            return Files.size(resolve(filePath));
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Cannot read the size of " + filePath, e);
+        }
+    }
+
+    /**
+     * Write the whole file to target with {@link FileChannel#transferTo}, which the OS performs without copying
+     * through user space when target is a socket or file channel (sendfile / copy_file_range). Other channels,
+     * e.g. one over a servlet output stream, get the content copied through a buffer.
+     *
+     * @return number of bytes written
+     */
+    public long transferTo(final String filePath, final WritableByteChannel target) throws IOException {
+        return transferTo(filePath, 0, Long.MAX_VALUE, target);
+    }
+
+    /**
+     * Write count bytes of the file from position on to target, e.g. for an HTTP range request.
+     *
+     * @return number of bytes written, less than count if the file ends before
+     */
+    public long transferTo(final String filePath, final long position, final long count,
+                           final WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(resolve(filePath), StandardOpenOption.READ)) {
+            final long end = Math.min(channel.size(), position + Math.min(count, Long.MAX_VALUE - position));
+            long transferred = 0;
+            // transferTo may write less than asked, e.g. 2 GB per call on Linux
+            while (position + transferred < end) {
+                final long written = channel.transferTo(position + transferred, end - position - transferred, target);
+                if (written <= 0) {
+                    break;
+                }
+                transferred += written;
+            }
+            return transferred;
+        }
+    }
+
+    /**
+     * Map the file read-only into memory, the content is paged in on access and shared with the page cache.
+     * The mapping stays valid until the buffer is garbage collected.
+     *
+     * @throws IllegalArgumentException if the file is larger than 2 GB, use {@link #transferTo} then
+     */
+    public MappedByteBuffer map(final String filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(resolve(filePath), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("File too large to map: " + filePath);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.cbxsoftware.rest.util;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generate the reflection metadata of the annotated class at compile time, see {@link ReflectionMetadataProcessor}.
+ * {@link CommonUtil#getGetterMethods(Class)}, {@link CommonUtil#getStaticFinalStringFieldValues(Class)},
+ * {@link CommonUtil#getInterfaceGenericClazz(Class, Integer)} and {@link CommonUtil#getParentGenericClazz(Class, Integer)}
+ * then read the generated table instead of scanning the class.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface ReflectionMetadata {
+}
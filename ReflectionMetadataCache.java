@@ -0,0 +1,209 @@
+package com.cbxsoftware.rest.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.util.ClassUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reflection and generic type metadata memoized per class, backing the reflective helpers of {@link CommonUtil}.
+ * <p>
+ * Metadata is attached to the class by {@link ClassValue}, so it is released together with its classloader.
+ * Failed lookups are not cached and throw again on the next call. Classes annotated with {@link ReflectionMetadata}
+ * are resolved from their generated table first, see {@link #getGenerated(Class)}.
+ */
+@Slf4j
+public final class ReflectionMetadataCache {
+
+    private static final ClassValue<ClassMetadata> METADATA = new ClassValue<>() {
+        @Override
+        protected ClassMetadata computeValue(final Class<?> type) {
+            return new ClassMetadata();
+        }
+    };
+    private static final ClassValue<Optional<GeneratedReflectionMetadata>> GENERATED = new ClassValue<>() {
+        @Override
+        protected Optional<GeneratedReflectionMetadata> computeValue(final Class<?> type) {
+            return loadGenerated(type);
+        }
+    };
+    private static final LongAdder HIT_COUNT = new LongAdder();
+    private static final LongAdder MISS_COUNT = new LongAdder();
+
+    private ReflectionMetadataCache() {
+    }
+
+    static List<Method> getGetterMethods(final Class<?> cls, final Function<Class<?>, List<Method>> loader) {
+        final ClassMetadata metadata = METADATA.get(cls);
+        List<Method> getters = metadata.getterMethods;
+        if (getters == null) {
+            MISS_COUNT.increment();
+            getters = metadata.getterMethods = Collections.unmodifiableList(loader.apply(cls));
+        } else {
+            HIT_COUNT.increment();
+        }
+        return getters;
+    }
+
+    static List<String> getStaticFinalStringFieldValues(final Class<?> type, final Function<Class<?>, List<String>> loader) {
+        final ClassMetadata metadata = METADATA.get(type);
+        List<String> values = metadata.staticFinalStringFieldValues;
+        if (values == null) {
+            MISS_COUNT.increment();
+            values = metadata.staticFinalStringFieldValues = Collections.unmodifiableList(loader.apply(type));
+        } else {
+            HIT_COUNT.increment();
+        }
+        return values;
+    }
+
+    static Optional<Field> getDeclaredField(final Class<?> type, final String fieldName) {
+        final ClassMetadata metadata = METADATA.get(type);
+        Map<String, Field> fields = metadata.declaredFields;
+        if (fields == null) {
+            MISS_COUNT.increment();
+            fields = new HashMap<>();
+            for (final Field field : type.getDeclaredFields()) {
+                fields.put(field.getName(), field);
+            }
+            metadata.declaredFields = fields;
+        } else {
+            HIT_COUNT.increment();
+        }
+        return Optional.ofNullable(fields.get(fieldName));
+    }
+
+    static Optional<Class<?>> getListFieldType(final Field field, final Function<Field, Optional<Class<?>>> loader) {
+        return getFieldValue(METADATA.get(field.getDeclaringClass()).listFieldTypes, field, loader);
+    }
+
+    static Optional<Class<?>> getNestListFieldType(final Field field, final Function<Field, Optional<Class<?>>> loader) {
+        return getFieldValue(METADATA.get(field.getDeclaringClass()).nestListFieldTypes, field, loader);
+    }
+
+    static Class<?> getInterfaceGenericClazz(final Class<?> interfaceClass, final int number,
+                                            final BiFunction<Class<?>, Integer, Class<?>> loader) {
+        return getIndexedValue(METADATA.get(interfaceClass).interfaceGenericClazzes, interfaceClass, number, loader);
+    }
+
+    static Class<?> getParentGenericClazz(final Class<?> currentClazz, final int number,
+                                         final BiFunction<Class<?>, Integer, Class<?>> loader) {
+        return getIndexedValue(METADATA.get(currentClazz).parentGenericClazzes, currentClazz, number, loader);
+    }
+
+    /**
+     * Resolve the metadata of all classes under the packages ahead of time, so that the first requests after
+     * deploy are served from the cache. Classes which cannot be loaded or introspected are skipped.
+     *
+     * @return number of classes warmed up
+     */
+    public static int prewarm(final String... basePackages) {
+        final ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter((metadataReader, metadataReaderFactory) -> true);
+        int count = 0;
+        for (final String basePackage : basePackages) {
+            for (final BeanDefinition candidate : scanner.findCandidateComponents(basePackage)) {
+                try {
+                    final Class<?> type = ClassUtils.forName(candidate.getBeanClassName(), ClassUtils.getDefaultClassLoader());
+                    CommonUtil.getGetterMethods(type);
+                    CommonUtil.getStaticFinalStringFieldValues(type);
+                    for (final Field field : type.getDeclaredFields()) {
+                        CommonUtil.getListFieldType(field);
+                        CommonUtil.getNestListFieldType(field);
+                    }
+                    count++;
+                } catch (final ClassNotFoundException | LinkageError | RuntimeException e) {
+                    log.debug("Skip prewarming reflection metadata of {}: {}", candidate.getBeanClassName(), e.toString());
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the table generated by {@link ReflectionMetadataProcessor} for type, null if there is none
+     */
+    static GeneratedReflectionMetadata getGenerated(final Class<?> type) {
+        return GENERATED.get(type).orElse(null);
+    }
+
+    private static Optional<GeneratedReflectionMetadata> loadGenerated(final Class<?> type) {
+        if (type.isArray() || type.isPrimitive() || type.getClassLoader() == null) {
+            return Optional.empty();
+        }
+        try {
+            final Class<?> generatedClass =
+                Class.forName(GeneratedReflectionMetadata.getClassName(type), true, type.getClassLoader());
+            if (GeneratedReflectionMetadata.class.isAssignableFrom(generatedClass)) {
+                final GeneratedReflectionMetadata generated =
+                    (GeneratedReflectionMetadata) generatedClass.getDeclaredConstructor().newInstance();
+                if (generated.getType() == type) {
+                    return Optional.of(generated);
+                }
+            }
+        } catch (final ClassNotFoundException e) {
+            // not annotated with @ReflectionMetadata
+        } catch (final ReflectiveOperationException | LinkageError e) {
+            log.debug("Ignore generated reflection metadata of {}: {}", type.getName(), e.toString());
+        }
+        return Optional.empty();
+    }
+
+    public static long getHitCount() {
+        return HIT_COUNT.sum();
+    }
+
+    public static long getMissCount() {
+        return MISS_COUNT.sum();
+    }
+
+    private static <V> V getFieldValue(final Map<String, V> values, final Field field, final Function<Field, V> loader) {
+        final V value = values.get(field.getName());
+        if (value != null) {
+            HIT_COUNT.increment();
+            return value;
+        }
+        MISS_COUNT.increment();
+        final V loaded = loader.apply(field);
+        values.put(field.getName(), loaded);
+        return loaded;
+    }
+
+    private static <V> V getIndexedValue(final Map<Integer, V> values, final Class<?> type, final int number,
+                                         final BiFunction<Class<?>, Integer, V> loader) {
+        final V value = values.get(number);
+        if (value != null) {
+            HIT_COUNT.increment();
+            return value;
+        }
+        MISS_COUNT.increment();
+        final V loaded = loader.apply(type, number);
+        values.put(number, loaded);
+        return loaded;
+    }
+
+    private static final class ClassMetadata {
+
+        private volatile List<Method> getterMethods;
+        private volatile List<String> staticFinalStringFieldValues;
+        private volatile Map<String, Field> declaredFields;
+        private final Map<String, Optional<Class<?>>> listFieldTypes = new ConcurrentHashMap<>();
+        private final Map<String, Optional<Class<?>>> nestListFieldTypes = new ConcurrentHashMap<>();
+        private final Map<Integer, Class<?>> interfaceGenericClazzes = new ConcurrentHashMap<>();
+        private final Map<Integer, Class<?>> parentGenericClazzes = new ConcurrentHashMap<>();
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.cbxsoftware.rest.util;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fill the {@link ReflectionMetadataCache} for the packages configured in
+ * <code>reflection-metadata.prewarm-packages</code> once the application is ready. Nothing is scanned by default.
+ */
+@Slf4j
+@Component
+public class ReflectionMetadataPrewarmer {
+
+    private final String[] basePackages;
+
+    public ReflectionMetadataPrewarmer(@Value("${reflection-metadata.prewarm-packages:}") final String[] basePackages) {
+        this.basePackages = basePackages;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prewarm() {
+        if (ArrayUtils.isEmpty(basePackages)) {
+            return;
+        }
+        final long start = System.currentTimeMillis();
+        final int count = ReflectionMetadataCache.prewarm(basePackages);
+        log.info("Prewarmed reflection metadata of {} classes in {} ms", count, System.currentTimeMillis() - start);
+    }
+
+}
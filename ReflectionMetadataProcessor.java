@@ -0,0 +1,280 @@
+package com.cbxsoftware.rest.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+/**
+ * Generate a {@link GeneratedReflectionMetadata} table for each class annotated with {@link ReflectionMetadata}.
+ * <p>
+ * The processor must be compiled before the classes it processes, i.e. from a separate artifact, and enabled with
+ * <code>-processor com.cbxsoftware.rest.util.ReflectionMetadataProcessor</code> or the annotation processor path
+ * of the build. Constants are inlined as literals; getters are still looked up by signature, but without scanning
+ * and filtering every method of the class. Whatever cannot be resolved statically is generated as null, so it is
+ * resolved by reflection at runtime as before.
+ */
+@SupportedAnnotationTypes("com.cbxsoftware.rest.util.ReflectionMetadata")
+public class ReflectionMetadataProcessor extends AbstractProcessor {
+
+    private static final String INDENT = "    ";
+    /**
+     * Package of {@link CommonUtil}, whose reflective lookup can also read package-private constants there.
+     */
+    private static final String UTIL_PACKAGE = "com.cbxsoftware.rest.util";
+    private static final Set<String> NON_GETTER_NAMES =
+        Set.of("getClass", "getHibernateLazyInitializer", "getInvocationHandler", "getProxyClass");
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        for (final TypeElement annotation : annotations) {
+            for (final Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element instanceof TypeElement type) {
+                    generate(type);
+                }
+            }
+        }
+        return true;
+    }
+
+    private void generate(final TypeElement type) {
+        final String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        if (!isAccessible(type, packageName)) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                "Skip reflection metadata of a private or local class", type);
+            return;
+        }
+        // the binary name keeps nested A.B (A$B) apart from a top level A_B
+        final String flatName = processingEnv.getElementUtils().getBinaryName(type).toString()
+            .substring(packageName.isEmpty() ? 0 : packageName.length() + 1);
+        final String className = flatName + GeneratedReflectionMetadata.CLASS_NAME_SUFFIX;
+        final String typeLiteral = type.getQualifiedName() + ".class";
+
+        final StringBuilder source = new StringBuilder(4096);
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import java.lang.reflect.Method;\n")
+            .append("import java.util.List;\n\n")
+            .append("import javax.annotation.processing.Generated;\n\n")
+            .append("import com.cbxsoftware.rest.util.GeneratedReflectionMetadata;\n\n")
+            .append("@Generated(\"").append(getClass().getName()).append("\")\n")
+            .append("public final class ").append(className).append(" implements GeneratedReflectionMetadata {\n\n");
+        appendField(source, "Class<?>[][] INTERFACE_TYPE_ARGUMENTS", interfaceTypeArguments(type, packageName));
+        appendField(source, "Class<?>[] PARENT_TYPE_ARGUMENTS", parentTypeArguments(type, packageName));
+        appendField(source, "List<String> STATIC_FINAL_STRING_FIELD_VALUES", staticFinalStringFieldValues(type, packageName));
+        source.append(INDENT).append("private volatile List<Method> getterMethods;\n");
+
+        appendMethod(source, "Class<?> getType()", "return " + typeLiteral + ";");
+        appendMethod(source, "List<String> getStaticFinalStringFieldValues()", "return STATIC_FINAL_STRING_FIELD_VALUES;");
+        final String getters = getterMethods(type, typeLiteral, packageName);
+        appendMethod(source, "List<Method> getGetterMethods()", getters == null ? "return null;" :
+            "List<Method> result = getterMethods;\n"
+                + INDENT + INDENT + "if (result == null) {\n"
+                + INDENT + INDENT + INDENT + "result = getterMethods = " + getters + ";\n"
+                + INDENT + INDENT + "}\n"
+                + INDENT + INDENT + "return result;");
+        appendMethod(source, "Class<?> getInterfaceGenericClass(final int number)",
+            "return INTERFACE_TYPE_ARGUMENTS == null ? null\n"
+                + INDENT + INDENT + INDENT + ": GeneratedReflectionMetadata.findTypeArgument(INTERFACE_TYPE_ARGUMENTS, number);");
+        appendMethod(source, "Class<?> getParentGenericClass(final int number)",
+            "return PARENT_TYPE_ARGUMENTS == null || number < 0 || number >= PARENT_TYPE_ARGUMENTS.length ? null\n"
+                + INDENT + INDENT + INDENT + ": PARENT_TYPE_ARGUMENTS[number];");
+        source.append("}\n");
+
+        final String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+            writer.write(source.toString());
+        } catch (final IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                "Cannot write " + qualifiedName + ": " + e.getMessage(), type);
+        }
+    }
+
+    /**
+     * @return initializer of the type arguments by parameterized interface, null if any of them is an array
+     */
+    private String interfaceTypeArguments(final TypeElement type, final String packageName) {
+        final List<String> rows = new ArrayList<>();
+        for (final TypeMirror interfaceType : type.getInterfaces()) {
+            final List<? extends TypeMirror> arguments = ((DeclaredType) interfaceType).getTypeArguments();
+            // non-generic and raw interfaces are no ParameterizedType at runtime and are skipped there
+            if (!arguments.isEmpty()) {
+                final String row = typeArguments(arguments, packageName);
+                if (row == null) {
+                    return null;
+                }
+                rows.add(row);
+            }
+        }
+        return "{" + String.join(", ", rows) + "}";
+    }
+
+    private String parentTypeArguments(final TypeElement type, final String packageName) {
+        final TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return "{}";
+        }
+        return typeArguments(((DeclaredType) superclass).getTypeArguments(), packageName);
+    }
+
+    /**
+     * @return array initializer with the class literal of each argument which is a plain class at runtime, null for
+     * the others, or null if an argument is an array (a class at runtime, but not representable here)
+     */
+    private String typeArguments(final List<? extends TypeMirror> arguments, final String packageName) {
+        final List<String> literals = new ArrayList<>(arguments.size());
+        for (final TypeMirror argument : arguments) {
+            if (argument instanceof ArrayType) {
+                return null;
+            }
+            if (argument instanceof DeclaredType declaredType && declaredType.getTypeArguments().isEmpty()
+                && isAccessible((TypeElement) declaredType.asElement(), packageName)) {
+                literals.add(((TypeElement) declaredType.asElement()).getQualifiedName() + ".class");
+            } else if (argument instanceof DeclaredType declaredType && declaredType.getTypeArguments().isEmpty()) {
+                return null;
+            } else {
+                literals.add("null");
+            }
+        }
+        return "{" + String.join(", ", literals) + "}";
+    }
+
+    /**
+     * Public String constants in declaration order, null if a static final String field is not a compile-time
+     * constant or the class is not public, as their values are only known at runtime then.
+     */
+    private String staticFinalStringFieldValues(final TypeElement type, final String packageName) {
+        if (UTIL_PACKAGE.equals(packageName) || !isPublic(type)) {
+            return null;
+        }
+        final List<String> literals = new ArrayList<>();
+        for (final Element member : type.getEnclosedElements()) {
+            if (member.getKind() != ElementKind.FIELD || !member.getModifiers().contains(Modifier.STATIC)
+                || !member.getModifiers().contains(Modifier.FINAL)
+                || !processingEnv.getTypeUtils().isSameType(member.asType(),
+                processingEnv.getElementUtils().getTypeElement(String.class.getName()).asType())) {
+                continue;
+            }
+            if (!member.getModifiers().contains(Modifier.PUBLIC)) {
+                continue;
+            }
+            final Object value = ((VariableElement) member).getConstantValue();
+            if (value == null) {
+                return null;
+            }
+            literals.add(processingEnv.getElementUtils().getConstantExpression(value));
+        }
+        return "List.of(" + String.join(", ", literals) + ")";
+    }
+
+    /**
+     * @return expression of the getter list, null if a parameter type cannot be referenced from generated code
+     */
+    private String getterMethods(final TypeElement type, final String typeLiteral, final String packageName) {
+        final List<String> lookups = new ArrayList<>();
+        for (final Element member : processingEnv.getElementUtils().getAllMembers(type)) {
+            if (member.getKind() != ElementKind.METHOD || !member.getModifiers().contains(Modifier.PUBLIC)
+                || !isGetterMethodName(member.getSimpleName().toString())) {
+                continue;
+            }
+            final StringBuilder lookup = new StringBuilder("GeneratedReflectionMetadata.getMethod(")
+                .append(typeLiteral).append(", \"").append(member.getSimpleName()).append('"');
+            for (final VariableElement parameter : ((ExecutableElement) member).getParameters()) {
+                final TypeMirror erasure = processingEnv.getTypeUtils().erasure(parameter.asType());
+                if (!isReferenceable(erasure, packageName)) {
+                    return null;
+                }
+                lookup.append(", ").append(erasure).append(".class");
+            }
+            lookups.add(lookup.append(')').toString());
+        }
+        return "List.of(\n" + INDENT + INDENT + INDENT + INDENT
+            + String.join(",\n" + INDENT + INDENT + INDENT + INDENT, lookups) + ")";
+    }
+
+    /**
+     * Same rule as {@link CommonUtil#isGetterMethodName(String)}, CommonUtil itself is not loaded at compile time.
+     */
+    private static boolean isGetterMethodName(final String methodName) {
+        return methodName.startsWith("get") && !NON_GETTER_NAMES.contains(methodName);
+    }
+
+    private boolean isReferenceable(final TypeMirror type, final String packageName) {
+        if (type.getKind().isPrimitive()) {
+            return true;
+        }
+        if (type instanceof ArrayType arrayType) {
+            return isReferenceable(arrayType.getComponentType(), packageName);
+        }
+        return type instanceof DeclaredType declaredType
+            && isAccessible((TypeElement) declaredType.asElement(), packageName);
+    }
+
+    /**
+     * @return true if the class can be referenced from a generated class in packageName: it and its enclosing
+     * classes are public, or not private and in packageName
+     */
+    private boolean isAccessible(final TypeElement type, final String packageName) {
+        final boolean samePackage = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName()
+            .contentEquals(packageName);
+        Element current = type;
+        while (current instanceof TypeElement typeElement) {
+            if (typeElement.getNestingKind() == NestingKind.LOCAL || typeElement.getNestingKind() == NestingKind.ANONYMOUS
+                || typeElement.getModifiers().contains(Modifier.PRIVATE)
+                || !samePackage && !typeElement.getModifiers().contains(Modifier.PUBLIC)) {
+                return false;
+            }
+            current = typeElement.getEnclosingElement();
+        }
+        return current instanceof PackageElement;
+    }
+
+    private static boolean isPublic(final TypeElement type) {
+        Element current = type;
+        while (current instanceof TypeElement typeElement) {
+            if (!typeElement.getModifiers().contains(Modifier.PUBLIC)) {
+                return false;
+            }
+            current = typeElement.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private static void appendField(final StringBuilder source, final String declaration, final String initializer) {
+        source.append(INDENT).append("private static final ").append(declaration).append(" = ")
+            .append(initializer == null ? "null" : initializer).append(";\n");
+    }
+
+    private static void appendMethod(final StringBuilder source, final String signature, final String body) {
+        source.append('\n').append(INDENT).append("@Override\n")
+            .append(INDENT).append("public ").append(signature).append(" {\n")
+            .append(INDENT).append(INDENT).append(body).append('\n')
+            .append(INDENT).append("}\n");
+    }
+
+}
@@ -0,0 +1,173 @@
+package com.cbxsoftware.rest.util.export;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Export rows as CSV (RFC 4180) while they are produced, in constant heap.
+ * <p>
+ * Rows are pulled from the iterator one at a time, converted with {@link CellValueUtils} semantics and
+ * buffered up to chunkSize rows, then the chunk is written and flushed to the output stream before the next
+ * rows are pulled. A slow consumer therefore blocks the producer, and the first bytes leave after the first chunk.
+ */
+public class StreamingCsvExporter {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+    private static final String RECORD_SEPARATOR = "\r\n";
+    private static final char QUOTE = '"';
+
+    private final int chunkSize;
+    private final char separator;
+    private final Charset charset;
+
+    public StreamingCsvExporter() {
+        this(DEFAULT_CHUNK_SIZE, ',', StandardCharsets.UTF_8);
+    }
+
+    public StreamingCsvExporter(final int chunkSize, final char separator, final Charset charset) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        this.separator = separator;
+        this.charset = charset;
+    }
+
+    public ExportStats export(final List<String> headers, final Stream<Object[]> rows, final OutputStream outputStream,
+                              final Consumer<ExportStats> progressListener) throws IOException {
+        return export(headers, rows.iterator(), outputStream, progressListener);
+    }
+
+    /**
+     * @param headers          header row, none if null
+     * @param outputStream     flushed after each chunk, not closed
+     * @param progressListener notified after each chunk, may be null
+     * @return final statistics of the export
+     */
+    public ExportStats export(final List<String> headers, final Iterator<Object[]> rows, final OutputStream outputStream,
+                              final Consumer<ExportStats> progressListener) throws IOException {
+        final long start = System.nanoTime();
+        final CountingOutputStream countingOutputStream = new CountingOutputStream(outputStream);
+        final Writer writer = new OutputStreamWriter(countingOutputStream, charset);
+        final ChunkWriter chunkWriter = new ChunkWriter(writer);
+        if (headers != null) {
+            chunkWriter.appendRow(headers.toArray());
+        }
+        long rowCount = 0;
+        int rowsInChunk = 0;
+        while (rows.hasNext()) {
+            chunkWriter.appendRow(rows.next());
+            rowCount++;
+            if (++rowsInChunk == chunkSize) {
+                chunkWriter.flush();
+                rowsInChunk = 0;
+                if (progressListener != null) {
+                    progressListener.accept(new ExportStats(rowCount, countingOutputStream.count, System.nanoTime() - start));
+                }
+            }
+        }
+        chunkWriter.flush();
+        final ExportStats stats = new ExportStats(rowCount, countingOutputStream.count, System.nanoTime() - start);
+        if (progressListener != null && rowsInChunk > 0) {
+            progressListener.accept(stats);
+        }
+        return stats;
+    }
+
+    private final class ChunkWriter {
+
+        private final Writer writer;
+        private final StringBuilder chunk = new StringBuilder(8192);
+        private final StringBuilder cell = new StringBuilder(64);
+        private CellValueUtils.ColumnEncoder[] encoders = new CellValueUtils.ColumnEncoder[0];
+        private char[] chars = new char[8192];
+
+        ChunkWriter(final Writer writer) {
+            this.writer = writer;
+        }
+
+        void appendRow(final Object[] row) {
+            if (row.length > encoders.length) {
+                final int oldLength = encoders.length;
+                encoders = Arrays.copyOf(encoders, row.length);
+                for (int i = oldLength; i < row.length; i++) {
+                    encoders[i] = new CellValueUtils.ColumnEncoder();
+                }
+            }
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    chunk.append(separator);
+                }
+                cell.setLength(0);
+                if (encoders[i].append(row[i], cell)) {
+                    appendEscaped(cell);
+                }
+            }
+            chunk.append(RECORD_SEPARATOR);
+        }
+
+        void flush() throws IOException {
+            final int length = chunk.length();
+            if (length > chars.length) {
+                chars = new char[Math.max(length, chars.length * 2)];
+            }
+            chunk.getChars(0, length, chars, 0);
+            writer.write(chars, 0, length);
+            writer.flush();
+            chunk.setLength(0);
+        }
+
+        private void appendEscaped(final StringBuilder value) {
+            boolean needQuote = false;
+            for (int i = 0; i < value.length() && !needQuote; i++) {
+                final char c = value.charAt(i);
+                needQuote = c == separator || c == QUOTE || c == '\r' || c == '\n';
+            }
+            if (!needQuote) {
+                chunk.append(value);
+                return;
+            }
+            chunk.append(QUOTE);
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (c == QUOTE) {
+                    chunk.append(QUOTE);
+                }
+                chunk.append(c);
+            }
+            chunk.append(QUOTE);
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(final OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+}
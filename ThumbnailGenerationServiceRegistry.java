@@ -0,0 +1,62 @@
+package com.cbxsoftware.rest.util;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import com.cbxsoftware.rest.service.file.thumbnail.ThumbnailGenerationService;
+
+/**
+ * Memoize the {@link ThumbnailGenerationService} chosen for a filePath by its file extension,
+ * so the lookup of the {@code FileStorageService} runs once per extension instead of once per file.
+ */
+public class ThumbnailGenerationServiceRegistry {
+
+    private static final int MAX_EXTENSIONS = 1024;
+    private static final String NO_EXTENSION = "";
+
+    private final Function<String, ThumbnailGenerationService> resolver;
+    private final Map<String, Optional<ThumbnailGenerationService>> servicesByExtension = new ConcurrentHashMap<>();
+
+    public ThumbnailGenerationServiceRegistry(final Function<String, ThumbnailGenerationService> resolver) {
+        this.resolver = resolver;
+    }
+
+    /**
+     * @return the thumbnail generation service for the filePath, or null if none supports it
+     */
+    public ThumbnailGenerationService get(final String filePath) {
+        final String extension = getExtension(filePath);
+        final Optional<ThumbnailGenerationService> cached = servicesByExtension.get(extension);
+        if (cached != null) {
+            return cached.orElse(null);
+        }
+        final ThumbnailGenerationService service = resolver.apply(filePath);
+        if (servicesByExtension.size() < MAX_EXTENSIONS) {
+            servicesByExtension.putIfAbsent(extension, Optional.ofNullable(service));
+        }
+        return service;
+    }
+
+    public void invalidateAll() {
+        servicesByExtension.clear();
+    }
+
+    public int size() {
+        return servicesByExtension.size();
+    }
+
+    private static String getExtension(final String filePath) {
+        if (filePath == null) {
+            return NO_EXTENSION;
+        }
+        final int dot = filePath.lastIndexOf('.');
+        if (dot < 0 || dot < filePath.lastIndexOf('/')) {
+            return NO_EXTENSION;
+        }
+        return filePath.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+}
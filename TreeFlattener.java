@@ -0,0 +1,181 @@
+package com.cbxsoftware.rest.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy, iterative traversal of a tree (or forest) given by its roots and a children getter.
+ * <p>
+ * An explicit stack (depth first) or queue (breadth first) of child iterators replaces recursion, so deep trees
+ * cannot overflow the call stack, and the children of a node are only fetched when the traversal reaches it.
+ * Depth first traversal holds one iterator per level and splits along the pending subtrees for parallel streams.
+ */
+public final class TreeFlattener {
+
+    public enum TraversalOrder {
+        /**
+         * Pre-order, each node is followed by its whole subtree.
+         */
+        DEPTH_FIRST,
+        /**
+         * Level by level, roots first.
+         */
+        BREADTH_FIRST
+    }
+
+    private static final int BATCH_UNIT = 1 << 10;
+    private static final int MAX_BATCH = 1 << 25;
+
+    private TreeFlattener() {
+    }
+
+    public static <T> Stream<T> stream(final Iterable<T> roots, final Function<T, Iterable<T>> childrenGetter,
+                                       final TraversalOrder order) {
+        return stream(roots, childrenGetter, order, Integer.MAX_VALUE, false);
+    }
+
+    /**
+     * @param maxDepth     nodes deeper than maxDepth are not visited, roots have depth 0
+     * @param detectCycles if true, a node reached again (by identity) is skipped together with its subtree,
+     *                     which also stops infinite traversal of cyclic graphs
+     */
+    public static <T> Stream<T> stream(final Iterable<T> roots, final Function<T, Iterable<T>> childrenGetter,
+                                       final TraversalOrder order, final int maxDepth, final boolean detectCycles) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("maxDepth must not be negative: " + maxDepth);
+        }
+        final Set<T> visited = detectCycles ? Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>())) : null;
+        final Deque<Frame<T>> frames = new ArrayDeque<>();
+        frames.add(new Frame<>(iteratorOf(roots), 0));
+        return StreamSupport.stream(new TreeSpliterator<>(frames, childrenGetter, order, maxDepth, visited), false);
+    }
+
+    private static <T> Iterator<T> iteratorOf(final Iterable<T> iterable) {
+        return iterable == null ? Collections.emptyIterator() : iterable.iterator();
+    }
+
+    private record Frame<T>(Iterator<T> iterator, int depth) {
+    }
+
+    private static final class TreeSpliterator<T> implements Spliterator<T> {
+
+        private final Deque<Frame<T>> frames;
+        private final Function<T, Iterable<T>> childrenGetter;
+        private final TraversalOrder order;
+        private final int maxDepth;
+        private final Set<T> visited;
+        private int batch;
+
+        TreeSpliterator(final Deque<Frame<T>> frames, final Function<T, Iterable<T>> childrenGetter,
+                        final TraversalOrder order, final int maxDepth, final Set<T> visited) {
+            this.frames = frames;
+            this.childrenGetter = childrenGetter;
+            this.order = order;
+            this.maxDepth = maxDepth;
+            this.visited = visited;
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super T> action) {
+            while (!frames.isEmpty()) {
+                // depth first works on the deepest frame (stack top), breadth first on the oldest (queue head)
+                final Frame<T> frame = order == TraversalOrder.DEPTH_FIRST ? frames.peekLast() : frames.peekFirst();
+                if (!frame.iterator().hasNext()) {
+                    if (order == TraversalOrder.DEPTH_FIRST) {
+                        frames.pollLast();
+                    } else {
+                        frames.pollFirst();
+                    }
+                    continue;
+                }
+                final T node = frame.iterator().next();
+                if (visited != null && !visited.add(node)) {
+                    continue;
+                }
+                if (frame.depth() < maxDepth) {
+                    frames.addLast(new Frame<>(iteratorOf(childrenGetter.apply(node)), frame.depth() + 1));
+                }
+                action.accept(node);
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Depth first only: the returned prefix takes every frame above the bottom one, or a batch of the bottom
+         * frame's remaining siblings when it is the only frame. A single remaining node, e.g. the root of a one-root
+         * tree, is split off alone and this spliterator descends into its children, so the next split works on them.
+         * Breadth first order cannot be split and keep order.
+         */
+        @Override
+        public Spliterator<T> trySplit() {
+            if (order != TraversalOrder.DEPTH_FIRST || frames.isEmpty()) {
+                return null;
+            }
+            final Deque<Frame<T>> prefix = new ArrayDeque<>();
+            if (frames.size() > 1) {
+                final Frame<T> bottom = frames.pollFirst();
+                prefix.addAll(frames);
+                frames.clear();
+                frames.add(bottom);
+            } else {
+                final Frame<T> bottom = frames.pollFirst();
+                final int size = Math.min(batch + BATCH_UNIT, MAX_BATCH);
+                final List<T> siblings = new ArrayList<>(Math.min(size, BATCH_UNIT));
+                while (siblings.size() < size && bottom.iterator().hasNext()) {
+                    siblings.add(bottom.iterator().next());
+                }
+                batch = siblings.size();
+                if (bottom.iterator().hasNext()) {
+                    frames.add(bottom);
+                    prefix.add(new Frame<>(siblings.iterator(), bottom.depth()));
+                } else if (siblings.isEmpty()) {
+                    return null;
+                } else if (siblings.size() == 1) {
+                    return splitNode(siblings.get(0), bottom.depth());
+                } else {
+                    // all remaining siblings are in memory now, split them in halves
+                    final int half = siblings.size() / 2;
+                    frames.add(new Frame<>(siblings.subList(half, siblings.size()).iterator(), bottom.depth()));
+                    prefix.add(new Frame<>(siblings.subList(0, half).iterator(), bottom.depth()));
+                }
+            }
+            return new TreeSpliterator<>(prefix, childrenGetter, order, maxDepth, visited);
+        }
+
+        /**
+         * @return a spliterator of node alone, this one continues with the subtree of node
+         */
+        private Spliterator<T> splitNode(final T node, final int depth) {
+            if (visited != null && !visited.add(node)) {
+                return null;
+            }
+            if (depth < maxDepth) {
+                frames.add(new Frame<>(iteratorOf(childrenGetter.apply(node)), depth + 1));
+            }
+            return Collections.singletonList(node).spliterator();
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED;
+        }
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.cbxsoftware.rest.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Splitting of depth first {@link TreeFlattener} streams, the order of parallel traversal must stay pre-order.
+ */
+class TreeFlattenerTest {
+
+    @Test
+    void singleRootTreeSplits() {
+        final Node root = tree(3, 50);
+        final Spliterator<Node> spliterator = depthFirst(root).spliterator();
+        final List<Spliterator<Node>> parts = new ArrayList<>();
+        parts.add(spliterator);
+        // split every part a few times, as a parallel stream does before traversing
+        for (int round = 0; round < 4; round++) {
+            final List<Spliterator<Node>> splits = new ArrayList<>();
+            for (final Spliterator<Node> part : parts) {
+                final Spliterator<Node> prefix = part.trySplit();
+                if (prefix != null) {
+                    splits.add(prefix);
+                }
+                splits.add(part);
+            }
+            parts.clear();
+            parts.addAll(splits);
+        }
+        final List<Integer> sizes = new ArrayList<>();
+        final List<Node> nodes = new ArrayList<>();
+        for (final Spliterator<Node> part : parts) {
+            final int before = nodes.size();
+            part.forEachRemaining(nodes::add);
+            sizes.add(nodes.size() - before);
+        }
+        assertEquals(depthFirst(root).collect(Collectors.toList()), nodes);
+        final long nonTrivialParts = sizes.stream().filter(size -> size > 1).count();
+        assertTrue(nonTrivialParts >= 4, () -> "parts: " + sizes);
+    }
+
+    @Test
+    void singleRootParallelStreamKeepsPreOrder() {
+        final Node root = tree(4, 12);
+        assertEquals(depthFirst(root).collect(Collectors.toList()), depthFirst(root).parallel().collect(Collectors.toList()));
+        assertEquals(1 + 12 + 12 * 12 + 12 * 12 * 12 + 12 * 12 * 12 * 12, depthFirst(root).parallel().count());
+    }
+
+    @Test
+    void singleNodeChainSplitsDownToTheFork() {
+        final Node root = new Node(0);
+        final Node chain = new Node(1);
+        root.children.add(chain);
+        chain.children.add(tree(2, 30));
+        final Spliterator<Node> spliterator = depthFirst(root).spliterator();
+        assertNotNull(spliterator.trySplit());
+        assertNotNull(spliterator.trySplit());
+        assertNotNull(spliterator.trySplit());
+        assertNotNull(spliterator.trySplit());
+    }
+
+    private static java.util.stream.Stream<Node> depthFirst(final Node root) {
+        return TreeFlattener.stream(List.of(root), node -> node.children, TreeFlattener.TraversalOrder.DEPTH_FIRST);
+    }
+
+    private static Node tree(final int depth, final int fanOut) {
+        final int[] ids = {0};
+        return tree(depth, fanOut, ids);
+    }
+
+    private static Node tree(final int depth, final int fanOut, final int[] ids) {
+        final Node node = new Node(ids[0]++);
+        if (depth > 0) {
+            for (int i = 0; i < fanOut; i++) {
+                node.children.add(tree(depth - 1, fanOut, ids));
+            }
+        }
+        return node;
+    }
+
+    private static final class Node {
+
+        private final int id;
+        private final List<Node> children = new ArrayList<>();
+
+        Node(final int id) {
+            this.id = id;
+        }
+
+        @Override
+        public String toString() {
+            return "Node" + id;
+        }
+    }
+
+}
@@ -0,0 +1,443 @@
+package com.cbxsoftware.rest.util;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.cbxsoftware.rest.dto.common.CustomTableDto;
+import com.cbxsoftware.rest.entity.custFieldDef.CustFieldDefItem;
+import com.cbxsoftware.rest.enums.FieldDataType;
+import com.cbxsoftware.rest.enums.FileProtocol;
+import com.cbxsoftware.rest.util.export.CellValueUtils;
+
+/**
+ * JMH benchmarks of the util hot paths on generated, seeded inputs.
+ * <p>
+ * Needs <code>jmh-core</code> and <code>jmh-generator-annprocess</code> on the classpath, the annotation processor
+ * generates the harness. {@link #main(String[])} runs all benchmarks with the GC profiler, so every result comes
+ * with <code>gc.alloc.rate.norm</code> (bytes allocated per operation); pass a regex to run a subset.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UtilBenchmark {
+
+    private static final long SEED = 42L;
+
+    public static void main(final String[] args) throws RunnerException {
+        final Options options = new OptionsBuilder()
+            .include(UtilBenchmark.class.getSimpleName() + (args.length > 0 ? "." + args[0] : ""))
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+
+    /**
+     * size items with about size / 4 distinct codes, the same number of nodes as a tree, and two lists of
+     * sqrt(size) strings for the cartesian product.
+     */
+    @State(Scope.Benchmark)
+    public static class CollectionState {
+
+        @Param({"100", "10000"})
+        public int size;
+
+        List<Item> items;
+        List<Integer> order;
+        List<Integer> expectedIds;
+        List<Item> roots;
+        List<String> left;
+        List<String> right;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            final Random random = new Random(SEED);
+            items = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                items.add(new Item(i, "CODE-" + random.nextInt(Math.max(1, size / 4)), random.nextInt(100)));
+            }
+            order = new ArrayList<>(size);
+            for (int i = size - 1; i >= 0; i -= 2) {
+                order.add(i);
+            }
+            expectedIds = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                expectedIds.add(i * 2);
+            }
+            roots = buildTree(random, size);
+            final int side = (int) Math.sqrt(size);
+            left = new ArrayList<>(side);
+            right = new ArrayList<>(side);
+            for (int i = 0; i < side; i++) {
+                left.add("L" + i);
+                right.add("R" + i);
+            }
+        }
+
+        /**
+         * size nodes spread over roots of at most 8 children each, about log8(size) levels deep.
+         */
+        private static List<Item> buildTree(final Random random, final int size) {
+            final List<Item> nodes = new ArrayList<>(size);
+            final List<Item> roots = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                final Item node = new Item(i, "NODE-" + i, 0);
+                if (nodes.isEmpty() || random.nextInt(64) == 0) {
+                    roots.add(node);
+                } else {
+                    nodes.get((i - 1) / 8).getChildren().add(node);
+                }
+                nodes.add(node);
+            }
+            return roots;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class AttachmentState {
+
+        /**
+         * PT0S disables the access url cache, so every call reaches the stub service.
+         */
+        @Param({"PT0S", "PT10M"})
+        public String accessUrlCacheTtl;
+
+        @Param({"0", "50"})
+        public int signingLatencyMicros;
+
+        private static final int PAGE_SIZE = 100;
+
+        List<String> filePathInfos;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            final AttachmentProperties properties = new AttachmentProperties();
+            properties.getAccessUrlCache().setTtl(Duration.parse(accessUrlCacheTtl));
+            new AttachmentUtil(FileStorageServiceStub.withSigningLatency(Duration.ofNanos(signingLatencyMicros * 1_000L))
+                .asService(), properties);
+            filePathInfos = new ArrayList<>(1_000);
+            for (int i = 0; i < 1_000; i++) {
+                filePathInfos.add(FileProtocol.S3 + ":domain" + i % 10 + "/" + (i % 100) + "/file" + i + ".png");
+            }
+        }
+
+        List<String> nextPage() {
+            next = (next + PAGE_SIZE) % filePathInfos.size();
+            return filePathInfos.subList(next, Math.min(next + PAGE_SIZE, filePathInfos.size()));
+        }
+
+        String nextFilePathInfo() {
+            next = (next + 1) % filePathInfos.size();
+            return filePathInfos.get(next);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class CustomFieldState {
+
+        @Param({"10", "100"})
+        public int fieldCount;
+
+        List<CustFieldDefItem> custFieldDefItems;
+        CustomTableDto source;
+        CustomTableDto unchanged;
+        CustomTableDto changedLast;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            custFieldDefItems = new ArrayList<>(fieldCount);
+            final Map<String, Object> values = new HashMap<>();
+            for (int i = 0; i < fieldCount; i++) {
+                final CustFieldDefItem item = new CustFieldDefItem();
+                item.setFieldId("custField" + i);
+                item.setFieldType(i % 2 == 0 ? FieldDataType.DECIMAL.getValue() : "Text");
+                custFieldDefItems.add(item);
+                values.put(item.getFieldId(), i % 2 == 0 ? new BigDecimal(i + ".123456") : "text" + i);
+            }
+            source = customTable(values);
+            unchanged = customTable(new HashMap<>(values));
+            final Map<String, Object> changedValues = new HashMap<>(values);
+            changedValues.put("custField" + (fieldCount - 1), "changed");
+            changedLast = customTable(changedValues);
+        }
+
+        private static CustomTableDto customTable(final Map<String, Object> values) {
+            final CustomTableDto customTable = new CustomTableDto();
+            customTable.setDynamicModelMap(values);
+            return customTable;
+        }
+    }
+
+    /**
+     * Cell values of a typical export row and native query values, valid and invalid for bigDec2Int.
+     */
+    @State(Scope.Benchmark)
+    public static class ValueState {
+
+        Object[] cells;
+        BigDecimal[] intDecimals;
+        Object[] badDecimals;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            final Random random = new Random(SEED);
+            cells = new Object[]{
+                "Some product description", random.nextLong(), random.nextDouble() * 1_000, new BigDecimal("1234.50"),
+                LocalDateTime.of(2024, 5, 30, 12, 34, 56), new Timestamp(1_717_000_000_000L), Boolean.TRUE, null
+            };
+            intDecimals = new BigDecimal[256];
+            badDecimals = new Object[256];
+            for (int i = 0; i < intDecimals.length; i++) {
+                intDecimals[i] = BigDecimal.valueOf(random.nextInt());
+                badDecimals[i] = switch (i % 3) {
+                    case 0 -> BigDecimal.valueOf(random.nextDouble());
+                    case 1 -> BigDecimal.valueOf(Long.MAX_VALUE - i);
+                    default -> "not a number";
+                };
+            }
+        }
+    }
+
+    /**
+     * A document with lineCount lines, an equal copy and a copy with a change in the last line.
+     */
+    @State(Scope.Benchmark)
+    public static class DocumentState {
+
+        @Param({"100", "5000"})
+        public int lineCount;
+
+        Document source;
+        Document unchanged;
+        Document changedLast;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            source = document(lineCount, false);
+            unchanged = document(lineCount, false);
+            changedLast = document(lineCount, true);
+        }
+
+        private static Document document(final int lineCount, final boolean changeLast) {
+            final Random random = new Random(SEED);
+            final List<Line> lines = new ArrayList<>(lineCount);
+            for (int i = 0; i < lineCount; i++) {
+                final BigDecimal price = BigDecimal.valueOf(random.nextInt(100_000), 2);
+                lines.add(new Line(i, "item" + random.nextInt(1_000),
+                    changeLast && i == lineCount - 1 ? price.add(BigDecimal.ONE) : price, List.of("tag" + i % 7)));
+            }
+            return new Document("DOC-1", lines);
+        }
+    }
+
+    @Benchmark
+    public List<Item> orderIn(final CollectionState state) {
+        return CommonUtil.orderIn(state.items, state.order, Item::getId);
+    }
+
+    @Benchmark
+    public List<Integer> getMissingData(final CollectionState state) {
+        return CommonUtil.getMissingData(state.expectedIds, state.items, Item::getId);
+    }
+
+    @Benchmark
+    public List<Item> uniqueBy(final CollectionState state) {
+        return CommonUtil.uniqueBy(state.items, Item::getCode, item -> item.getScore() > 50);
+    }
+
+    @Benchmark
+    public Map<String, List<Item>> groupBy(final CollectionState state) {
+        return CommonUtil.groupBy(state.items, Item::getCode);
+    }
+
+    @Benchmark
+    public List<Item> flattenIterableItems(final CollectionState state) {
+        return CommonUtil.flattenIterableItems(state.roots, Item::getChildren);
+    }
+
+    @Benchmark
+    public List<String> cartesianProductList(final CollectionState state) {
+        return CommonUtil.cartesianProductList(state.left, state.right, (left, right) -> left + right);
+    }
+
+    @Benchmark
+    public void objToMap(final CollectionState state, final Blackhole blackhole) {
+        for (int i = 0; i < Math.min(100, state.items.size()); i++) {
+            blackhole.consume(CommonUtil.objToMap(state.items.get(i)));
+        }
+    }
+
+    @Benchmark
+    public void beanToMap(final CollectionState state, final Blackhole blackhole) {
+        for (int i = 0; i < Math.min(100, state.items.size()); i++) {
+            blackhole.consume(CommonUtil.beanToMap(state.items.get(i)));
+        }
+    }
+
+    @Benchmark
+    public Optional<String> getFilePathInfoUrl(final AttachmentState state) {
+        return AttachmentUtil.getFilePathInfoUrl(state.nextFilePathInfo());
+    }
+
+    @Benchmark
+    public Map<String, Optional<String>> getFilePathInfoUrls(final AttachmentState state) {
+        return AttachmentUtil.getFilePathInfoUrls(state.nextPage());
+    }
+
+    @Benchmark
+    public Map<String, Optional<String>> getFilePathInfoUrlsAsync(final AttachmentState state) {
+        return AttachmentUtil.getFilePathInfoUrlsAsync(state.nextPage()).join();
+    }
+
+    @Benchmark
+    public boolean isCustomFieldUpdatedUnchanged(final CustomFieldState state) {
+        return AttachmentUtil.isCustomFieldUpdated(state.source, state.unchanged, state.custFieldDefItems);
+    }
+
+    @Benchmark
+    public boolean isCustomFieldUpdatedChangedLast(final CustomFieldState state) {
+        return AttachmentUtil.isCustomFieldUpdated(state.source, state.changedLast, state.custFieldDefItems);
+    }
+
+    @Benchmark
+    public void getStringValue(final ValueState state, final Blackhole blackhole) {
+        for (final Object cell : state.cells) {
+            blackhole.consume(CellValueUtils.getStringValue(cell));
+        }
+    }
+
+    @Benchmark
+    public void bigDec2IntValid(final ValueState state, final Blackhole blackhole) {
+        for (final BigDecimal value : state.intDecimals) {
+            blackhole.consume(DataUtil.bigDec2Int(value, null));
+        }
+    }
+
+    @Benchmark
+    public void bigDec2IntInvalid(final ValueState state, final Blackhole blackhole) {
+        for (final Object value : state.badDecimals) {
+            blackhole.consume(DataUtil.bigDec2Int(value, null));
+        }
+    }
+
+    @Benchmark
+    public boolean dtoDiffIsUpdatedUnchanged(final DocumentState state) {
+        return DtoDiff.isUpdated(state.source, state.unchanged);
+    }
+
+    @Benchmark
+    public List<String> dtoDiffChangedLast(final DocumentState state) {
+        return DtoDiff.diff(state.source, state.changedLast);
+    }
+
+    public static class Document {
+
+        private final String code;
+        private final List<Line> lines;
+
+        public Document(final String code, final List<Line> lines) {
+            this.code = code;
+            this.lines = lines;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public List<Line> getLines() {
+            return lines;
+        }
+    }
+
+    public static class Line {
+
+        private final int lineNo;
+        private final String itemCode;
+        private final BigDecimal unitPrice;
+        private final List<String> tags;
+
+        public Line(final int lineNo, final String itemCode, final BigDecimal unitPrice, final List<String> tags) {
+            this.lineNo = lineNo;
+            this.itemCode = itemCode;
+            this.unitPrice = unitPrice;
+            this.tags = tags;
+        }
+
+        public int getLineNo() {
+            return lineNo;
+        }
+
+        public String getItemCode() {
+            return itemCode;
+        }
+
+        public BigDecimal getUnitPrice() {
+            return unitPrice;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+    }
+
+    public static class Item {
+
+        private final int id;
+        private final String code;
+        private final int score;
+        private final List<Item> children = new ArrayList<>();
+
+        public Item(final int id, final String code, final int score) {
+            this.id = id;
+            this.code = code;
+            this.score = score;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public List<Item> getChildren() {
+            return children;
+        }
+    }
+
+}
@@ -0,0 +1,216 @@
+package com.cbxsoftware.rest.util;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call counts and latencies of the util hot paths, plus the hit/miss counts of their caches.
+ * <p>
+ * All counters are {@link LongAdder}s, so recording never contends between threads; a latency is kept in
+ * power of two nanosecond buckets, which is enough for percentiles within a factor of two. Read everything at
+ * once with {@link #snapshot()}, e.g. from a test or a diagnostic endpoint, and use {@link Snapshot#since(Snapshot)}
+ * for the calls of a single request or test case.
+ */
+public final class UtilMetrics {
+
+    /**
+     * {@link AttachmentUtil#getFilePathUrl}, cached or not.
+     */
+    public static final Timer FILE_PATH_URL = new Timer("attachment.file-path-url");
+    /**
+     * Calls which reached the FileStorageService to sign an access url.
+     */
+    public static final Timer ACCESS_URL_SIGNING = new Timer("attachment.access-url-signing");
+    public static final Timer OBJ_TO_MAP = new Timer("common.obj-to-map");
+    public static final Timer READ_JSON = new Timer("common.read-json");
+
+    private static final Timer[] TIMERS = {FILE_PATH_URL, ACCESS_URL_SIGNING, OBJ_TO_MAP, READ_JSON};
+
+    private static volatile boolean enabled = true;
+
+    private UtilMetrics() {
+    }
+
+    /**
+     * Stop recording, the timers then only read the clock and a volatile flag.
+     */
+    public static void setEnabled(final boolean enabled) {
+        UtilMetrics.enabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static Snapshot snapshot() {
+        final Map<String, TimerSnapshot> timers = new LinkedHashMap<>();
+        for (final Timer timer : TIMERS) {
+            timers.put(timer.name, timer.snapshot());
+        }
+        final Map<String, CacheSnapshot> caches = new LinkedHashMap<>();
+        final AccessUrlCache accessUrlCache = AttachmentUtil.getAccessUrlCache();
+        caches.put("attachment.access-url-cache",
+            new CacheSnapshot(accessUrlCache.getHitCount(), accessUrlCache.getMissCount()));
+        caches.put("common.reflection-metadata",
+            new CacheSnapshot(ReflectionMetadataCache.getHitCount(), ReflectionMetadataCache.getMissCount()));
+        return new Snapshot(timers, caches);
+    }
+
+    /**
+     * Reset the timers, cache counters are owned by the caches and are not reset.
+     */
+    public static void reset() {
+        for (final Timer timer : TIMERS) {
+            timer.reset();
+        }
+    }
+
+    public static final class Timer {
+
+        /**
+         * Bucket i counts latencies below 2^i nanoseconds (and not below 2^(i-1)).
+         */
+        private static final int BUCKET_COUNT = 64;
+
+        private final String name;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+        private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+
+        Timer(final String name) {
+            this.name = name;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * @return start time to pass to {@link #record(long)}
+         */
+        public long start() {
+            return System.nanoTime();
+        }
+
+        public void record(final long startNanos) {
+            if (!enabled) {
+                return;
+            }
+            final long nanos = Math.max(0L, System.nanoTime() - startNanos);
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            buckets[Long.SIZE - Long.numberOfLeadingZeros(nanos)].increment();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        TimerSnapshot snapshot() {
+            final long[] bucketCounts = new long[BUCKET_COUNT];
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                bucketCounts[i] = buckets[i].sum();
+            }
+            return new TimerSnapshot(count.sum(), totalNanos.sum(), maxNanos.get(), bucketCounts);
+        }
+
+        void reset() {
+            count.reset();
+            totalNanos.reset();
+            maxNanos.reset();
+            for (final LongAdder bucket : buckets) {
+                bucket.reset();
+            }
+        }
+    }
+
+    /**
+     * Counters of a timer at the time of the snapshot, not atomic across counters.
+     */
+    public record TimerSnapshot(long count, long totalNanos, long maxNanos, long[] bucketCounts) {
+
+        public double getMeanMicros() {
+            return count == 0 ? 0 : totalNanos / 1_000d / count;
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         * @return upper bound of the bucket holding the percentile, in microseconds
+         */
+        public double getPercentileMicros(final double percentile) {
+            final long rank = (long) Math.ceil(Arrays.stream(bucketCounts).sum() * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < bucketCounts.length; i++) {
+                seen += bucketCounts[i];
+                if (seen >= rank && seen > 0) {
+                    return Math.min(1L << Math.min(i, 62), maxNanos) / 1_000d;
+                }
+            }
+            return 0;
+        }
+
+        public TimerSnapshot since(final TimerSnapshot before) {
+            final long[] counts = new long[bucketCounts.length];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = bucketCounts[i] - before.bucketCounts[i];
+            }
+            // the max cannot be subtracted, keep the overall one as an upper bound
+            return new TimerSnapshot(count - before.count, totalNanos - before.totalNanos, maxNanos, counts);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d, mean=%.1fus, p50=%.1fus, p99=%.1fus, max=%.1fus", count, getMeanMicros(),
+                getPercentileMicros(50), getPercentileMicros(99), maxNanos / 1_000d);
+        }
+    }
+
+    public record CacheSnapshot(long hitCount, long missCount) {
+
+        public double getHitRate() {
+            final long total = hitCount + missCount;
+            return total == 0 ? 0 : (double) hitCount / total;
+        }
+
+        public CacheSnapshot since(final CacheSnapshot before) {
+            return new CacheSnapshot(hitCount - before.hitCount, missCount - before.missCount);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d, misses=%d, hitRate=%.3f", hitCount, missCount, getHitRate());
+        }
+    }
+
+    public record Snapshot(Map<String, TimerSnapshot> timers, Map<String, CacheSnapshot> caches) {
+
+        /**
+         * @return the calls recorded between before and this snapshot
+         */
+        public Snapshot since(final Snapshot before) {
+            final Map<String, TimerSnapshot> timerDeltas = new LinkedHashMap<>();
+            timers.forEach((name, timer) -> timerDeltas.put(name,
+                before.timers.containsKey(name) ? timer.since(before.timers.get(name)) : timer));
+            final Map<String, CacheSnapshot> cacheDeltas = new LinkedHashMap<>();
+            caches.forEach((name, cache) -> cacheDeltas.put(name,
+                before.caches.containsKey(name) ? cache.since(before.caches.get(name)) : cache));
+            return new Snapshot(timerDeltas, cacheDeltas);
+        }
+
+        public long getCount(final String timerName) {
+            final TimerSnapshot timer = timers.get(timerName);
+            return timer == null ? 0 : timer.count();
+        }
+
+        public long getTotalMillis(final String timerName) {
+            final TimerSnapshot timer = timers.get(timerName);
+            return timer == null ? 0 : TimeUnit.NANOSECONDS.toMillis(timer.totalNanos());
+        }
+    }
+
+}